@@ -0,0 +1,119 @@
+package com.afit.edu;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+/**
+ * The Board operations every search repeats for each node: generating moves,
+ * making and reversing them, keying the board and copying it. Each one runs
+ * on the start position of every puzzle, since the number of pieces and free
+ * squares changes the cost.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(2)
+public class BoardBench
+{
+    @Param({"simple.txt", "hard.txt"})
+    public String file;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int index;
+
+    private Board board;
+    private int moves[] = new int[Board.MAX_MOVES];
+    private int count;
+    private Move moveList;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        board = Puzzles.load(file, index);
+        count = board.genMoves(moves);
+        moveList = board.genMoves();
+    }
+
+    @Benchmark
+    public Move genMoves()
+    {
+        return board.genMoves();
+    }
+
+    @Benchmark
+    public int genMovesPacked()
+    {
+        return board.genMoves(moves);
+    }
+
+    /**
+     * Makes and reverses every legal move of the board through the Move list
+     */
+    @Benchmark
+    public void makeReverseMove(Blackhole bh)
+    {
+        for (Move m = moveList; m != null; m = m.next) {
+            board.makeMove(m);
+            bh.consume(board.zobristKey());
+            board.reverseMove(m);
+        }
+    }
+
+    /**
+     * Makes and reverses every legal move of the board as packed moves
+     */
+    @Benchmark
+    public void makeReversePacked(Blackhole bh)
+    {
+        for (int k = 0; k < count; k++) {
+            board.makeMove(moves[k]);
+            bh.consume(board.zobristKey());
+            board.reverseMove(moves[k]);
+        }
+    }
+
+    @Benchmark
+    public String hashKey()
+    {
+        return board.hashKey();
+    }
+
+    @Benchmark
+    public long zobristKey()
+    {
+        return board.zobristKey();
+    }
+
+    @Benchmark
+    public long stateKey()
+    {
+        return board.stateKey();
+    }
+
+    @Benchmark
+    public Board copy()
+    {
+        return new Board(board);
+    }
+
+    @Benchmark
+    public Board copyWithoutMoves()
+    {
+        return new Board(board, false);
+    }
+}
@@ -0,0 +1,37 @@
+package com.afit.edu;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Loads the puzzles the benchmarks run on
+ */
+class Puzzles
+{
+    /**
+     * Reads one board from a puzzle file in the puzzles directory, given by
+     * -Dpuzzles and ../../assignment01 by default
+     *
+     * @param name  - puzzle file name
+     * @param index - position of the board in the file, from 1
+     * @return Board
+     * @throws IOException if the file cannot be read or is too short
+     */
+    static Board load(String name, int index) throws IOException
+    {
+        File file = new File(System.getProperty("puzzles", "../../assignment01"), name);
+        PuzzleReader in = new PuzzleReader(file);
+        try {
+            String newBoard[][] = null;
+            for (int i = 0; i < index; i++)
+                if ((newBoard = in.next()) == null)
+                    throw new IOException(name + " has fewer than " + index + " boards");
+            Board board = new Board();
+            board.importBoard(newBoard);
+            return board;
+        }
+        finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,49 @@
+package com.afit.edu;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Solves each puzzle from scratch with a breadth first search. The board is
+ * copied for every call so each search starts from the same position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(2)
+public class SearchBench
+{
+    @Param({"simple.txt", "hard.txt"})
+    public String file;
+
+    @Param({"1", "2", "3", "4", "5"})
+    public int index;
+
+    private Board board;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        board = Puzzles.load(file, index);
+    }
+
+    @Benchmark
+    public Move bfs()
+    {
+        return new BrdSearch(new Board(board, false)).findMoves();
+    }
+}
@@ -0,0 +1,132 @@
+package com.afit.edu;
+
+/**
+ * A* search over BitBoard states. Nodes are expanded in order of
+ * f = g + h, where g is the number of moves from the start and h comes from a
+ * pluggable Heuristic. As long as the heuristic never overestimates, the
+ * first goal taken off the open list has an optimal move list.
+ */
+class AStarSearch implements Search
+{
+    private static final int G_BITS = 16;
+    private static final long G_MASK = (1L << G_BITS) - 1;
+
+    private BitBoard board;
+    private Heuristic heuristic;
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private LongMinHeap open = new LongMinHeap();
+    private LongIntMap discoBoards = new LongIntMap(); // state -> node id
+    private StateTree tree = new StateTree();
+    private int cost[] = new int[1024];                // g of each node
+    private int moves[] = new int[Board.MAX_MOVES];    // reused move buffer
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board
+     * @param h - Heuristic
+     */
+    public AStarSearch(Board b, Heuristic h)
+    {
+        this.board = new BitBoard(b);
+        this.heuristic = h;
+        int root = addNode(board.state(), -1, 0, 0);
+        open.push(entry(h.estimate(board), 0, root));
+    }
+
+    /**
+     * Packs an open list entry. Lower f comes first, then higher g so that
+     * ties go to the node closest to the goal, then the older node.
+     */
+    private static long entry(int f, int g, int id)
+    {
+        return ((long) f << (32 + G_BITS)) | ((G_MASK - g) << 32) | id;
+    }
+
+    private int addNode(long state, int parent, int move, int g)
+    {
+        int id = tree.add(state, parent, move);
+        if (id == cost.length) {
+            int grown[] = new int[id * 2];
+            System.arraycopy(cost, 0, grown, 0, id);
+            cost = grown;
+        }
+        cost[id] = g;
+        discoBoards.put(state, id);
+        return id;
+    }
+
+    /**
+     * Uses A* search to find an optimal move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        while (!open.isEmpty()) {
+            long e = open.poll();
+            int v = (int) e;
+            int g = (int) (G_MASK - ((e >>> 32) & G_MASK));
+            // Skip entries left behind when a shorter way to v was found
+            if (g != cost[v])
+                continue;
+            if (budget.exhausted(stats.expanded)) {
+                // With a heuristic that never overestimates, no solution is
+                // shorter than the smallest f still open
+                open.push(e);
+                stats.stop(budget.reason(), (int) (e >>> (32 + G_BITS)));
+                stats.visited(discoBoards.size(), discoBoards.capacity());
+                return null;
+            }
+            board.setState(tree.state(v));
+            stats.expandedAt(g);
+            if (board.isGoal()) {
+                stats.stop(SearchStats.GOAL, g);
+                stats.visited(discoBoards.size(), discoBoards.capacity());
+                return tree.path(v);
+            }
+
+            int n = board.genMoves(moves);
+            stats.generated += n;
+            for (int k = 0; k < n; k++) {
+                board.makeMove(moves[k]);
+                long key = board.state();
+                int w = discoBoards.get(key);
+                if (w < 0) {
+                    w = addNode(key, v, moves[k], g + 1);
+                    open.push(entry(g + 1 + heuristic.estimate(board), g + 1, w));
+                }
+                else if (g + 1 < cost[w]) {
+                    // Only happens when the heuristic is not consistent
+                    tree.set(w, v, moves[k]);
+                    cost[w] = g + 1;
+                    open.push(entry(g + 1 + heuristic.estimate(board), g + 1, w));
+                }
+                else
+                    stats.duplicates++;
+                board.reverseMove(moves[k]);
+            }
+            stats.frontier(open.size());
+        }
+        stats.stop(SearchStats.NO_SOLUTION, -1);
+        stats.visited(discoBoards.size(), discoBoards.capacity());
+        return null;
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
@@ -0,0 +1,242 @@
+package com.afit.edu;
+
+/**
+ * Bidirectional breadth first search. A forward frontier grows from the
+ * start board and a backward frontier from the goal states of the same
+ * pieces, one whole layer at a time, always on the side with the smaller
+ * frontier. The search stops at the end of the first layer that reaches a
+ * state the other side has seen, keeping the shortest path through any of
+ * the meeting states, and the two half paths are joined there.
+ *
+ * Most goal states are of no use as seeds. Pieces sharing a lane never pass
+ * each other, so a goal state with such a pair the other way round from the
+ * start cannot be reached. And the first goal state on any path is entered by
+ * a move of X0, so only goal states X0 can back out of are seeded; the others
+ * are only reached through those. Seeding them all would make the backward
+ * frontier larger than the whole forward search, so it would never be
+ * expanded.
+ *
+ * If the goal states alone would be more than SEED_LIMIT states, only the
+ * forward side is grown, which is a plain breadth first search.
+ */
+class BidirectionalSearch implements Search
+{
+    static final int SEED_LIMIT = 1 << 20;
+
+    private BitBoard board;
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private Side forward = new Side();
+    private Side backward = new Side();
+    private int moves[] = new int[Board.MAX_MOVES];  // reused move buffer
+
+    /**
+     * One direction of the search. Its nodes are numbered in the order they
+     * are found, so each layer is a range of ids.
+     */
+    private static class Side
+    {
+        StateTree tree = new StateTree();
+        LongIntMap seen = new LongIntMap();  // state -> node id
+        int layerStart, layerEnd;
+        int depth;                           // depth of the layer being expanded
+
+        int add(long state, int parent, int move)
+        {
+            int id = tree.add(state, parent, move);
+            seen.put(state, id);
+            return id;
+        }
+
+        int depth(int id)
+        {
+            int d = 0;
+            for (; tree.parent(id) >= 0; id = tree.parent(id))
+                d++;
+            return d;
+        }
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board
+     */
+    public BidirectionalSearch(Board b)
+    {
+        this.board = new BitBoard(b);
+        forward.add(board.state(), -1, 0);
+        forward.layerEnd = 1;
+        long goals[] = board.enumerate(true, SEED_LIMIT);
+        if (goals != null) {
+            BitBoard goal = new BitBoard(board);
+            for (long state : goals) {
+                goal.setState(state);
+                if (sameLaneOrder(board, goal) && entered(goal))
+                    backward.add(state, -1, 0);
+            }
+        }
+        backward.layerEnd = backward.tree.size();
+    }
+
+    /**
+     * @param goal - BitBoard in a goal state
+     * @return true if X0 can back out of the exit, so the state can be the
+     *         first goal state on a path
+     */
+    private boolean entered(BitBoard goal)
+    {
+        int n = goal.genReverseMoves(moves);
+        for (int k = 0; k < n; k++)
+            if (moves[k] >>> 16 == goal.goal_piece)
+                return true;
+        return false;
+    }
+
+    /**
+     * Two pieces sliding along the same lane can never pass each other, so a
+     * goal state with any such pair the other way round is not reachable
+     *
+     * @param start - BitBoard of the start board
+     * @param goal  - BitBoard of a goal state of the same pieces
+     * @return true if every pair sharing a lane is in the same order in both
+     */
+    static boolean sameLaneOrder(BitBoard start, BitBoard goal)
+    {
+        for (int i = 0; i < start.piece_count; i++)
+            for (int j = i + 1; j < start.piece_count; j++) {
+                if (start.move_direction[i] != start.move_direction[j])
+                    continue;
+                if (start.move_direction[i] == Piece.EAST_WEST &&
+                        start.fixed_y[i] < start.fixed_y[j] + start.dy[j] &&
+                        start.fixed_y[j] < start.fixed_y[i] + start.dy[i] &&
+                        (start.getX(i) < start.getX(j)) != (goal.getX(i) < goal.getX(j)))
+                    return false;
+                if (start.move_direction[i] == Piece.NORTH_SOUTH &&
+                        start.fixed_x[i] < start.fixed_x[j] + start.dx[j] &&
+                        start.fixed_x[j] < start.fixed_x[i] + start.dx[i] &&
+                        (start.getY(i) < start.getY(j)) != (goal.getY(i) < goal.getY(j)))
+                    return false;
+            }
+        return true;
+    }
+
+    /**
+     * Uses bidirectional breadth first search to find the shortest move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        // Without the backward side a goal is only recognised as a goal
+        boolean seeded = backward.tree.size() > 0;
+        budget.start();
+        if (board.isGoal()) {
+            stats.stop(SearchStats.GOAL, 0);
+            return null;
+        }
+        int best = Integer.MAX_VALUE;
+        int meetForward = -1, meetBackward = -1;
+
+        while (forward.layerStart < forward.layerEnd) {
+            boolean forwardTurn = !seeded ||
+                    forward.layerEnd - forward.layerStart <= backward.layerEnd - backward.layerStart;
+            if (seeded && backward.layerStart == backward.layerEnd) {
+                stats.stop(SearchStats.NO_SOLUTION, -1);
+                return null;
+            }
+            Side side = forwardTurn ? forward : backward;
+            Side other = forwardTurn ? backward : forward;
+
+            for (int v = side.layerStart; v < side.layerEnd; v++) {
+                if (budget.exhausted(stats.expanded)) {
+                    // Both sides know every state up to their finished depth,
+                    // so a shorter path would already have met
+                    stats.stop(budget.reason(), forward.depth + backward.depth + 1);
+                    return null;
+                }
+                board.setState(side.tree.state(v));
+                stats.expandedAt(forwardTurn ? forward.depth : backward.depth);
+                int n = forwardTurn ? board.genMoves(moves) : board.genReverseMoves(moves);
+                stats.generated += n;
+                for (int k = 0; k < n; k++) {
+                    board.makeMove(moves[k]);
+                    long key = board.state();
+                    if (side.seen.get(key) < 0) {
+                        int w = side.add(key, v, moves[k]);
+                        int o = other.seen.get(key);
+                        if (o >= 0 || (!seeded && board.isGoal())) {
+                            int length = side.depth(w) + (o >= 0 ? other.depth(o) : 0);
+                            if (length < best) {
+                                best = length;
+                                meetForward = forwardTurn ? w : o;
+                                meetBackward = forwardTurn ? o : w;
+                            }
+                        }
+                    }
+                    else
+                        stats.duplicates++;
+                    board.reverseMove(moves[k]);
+                }
+            }
+            side.layerStart = side.layerEnd;
+            side.layerEnd = side.tree.size();
+            side.depth++;
+            stats.frontier((forward.layerEnd - forward.layerStart) + (backward.layerEnd - backward.layerStart));
+            stats.visited(forward.seen.size() + backward.seen.size(),
+                          forward.seen.capacity() + backward.seen.capacity());
+            if (best < Integer.MAX_VALUE) {
+                stats.stop(SearchStats.GOAL, best);
+                return join(meetForward, meetBackward);
+            }
+        }
+        stats.stop(SearchStats.NO_SOLUTION, -1);
+        return null;
+    }
+
+    /**
+     * Joins the forward path to the meeting state with the backward path from
+     * it to the goal
+     *
+     * @param f - forward node id of the meeting state
+     * @param b - backward node id of the meeting state, -1 if it is the goal
+     * @return Move list in the order the moves are made
+     */
+    private Move join(int f, int b)
+    {
+        // The backward tree stores the moves from the goal side, so each one
+        // is undone in the opposite direction, nearest the meeting state first
+        Move tail = null, last = null;
+        for (; b >= 0 && backward.tree.parent(b) >= 0; b = backward.tree.parent(b)) {
+            Move m = new Move(Move.opposite(backward.tree.move(b)), null);
+            if (last == null)
+                tail = m;
+            else
+                last.next = m;
+            last = m;
+        }
+        Move head = forward.tree.path(f);
+        if (head == null)
+            return tail;
+        Move end = head;
+        while (end.next != null)
+            end = end.next;
+        end.next = tail;
+        return head;
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
@@ -0,0 +1,516 @@
+package com.afit.edu;
+
+/**
+ * Compact version of Board. The whole position is held in two longs: an
+ * occupancy mask with one bit for every square of theBoard (bit x*BOARD_SIZE+y)
+ * and the packed offsets of every piece along the lane it slides in. A second
+ * mask of the same squares row by row (bit y*(BOARD_SIZE+1)+x) is kept next
+ * to it, so that both the column and the row a piece slides along are a
+ * single shift, and moves are found with bit scans.
+ *
+ * The size and lane of a piece never change during a search, so copies share
+ * them and only the two longs are copied. Piece indices are the same as in the
+ * Board the BitBoard was built from, so the moves can be applied to either.
+ *
+ * Only the standard board size fits in the two longs; WideBitBoard holds the
+ * larger ones.
+ */
+public class BitBoard
+{
+    static final int OFFSET_BITS = 3;
+    static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    static final int MAX_SLOTS = 64 / OFFSET_BITS;
+    static final int COLUMN_BITS = Board.BOARD_SIZE;      // squares in a column
+    static final int ROW_BITS = Board.BOARD_SIZE + 1;     // squares in a row, exit included
+    static final int BOARD_COLUMN = (1 << Board.BOARD_SIZE) - 1; // a column, or a row without the exit
+    static final int MAX_SLIDE = Board.BOARD_INDEX - 1;   // longest slide genMoves gives
+
+    // Piece layout, shared between copies
+    final int piece_count;
+    final int goal_piece;          // index of X0
+    final int dx[], dy[];          // size of each piece
+    final int move_direction[];
+    final int x_slot[], y_slot[];  // offset slot of each coordinate, -1 if fixed
+    final int fixed_x[], fixed_y[];
+    final long shape[];            // squares covered by a piece sitting at 0,0
+    final long rowShape[];         // the same squares in the row by row mask
+
+    public long occupied;          // one bit per square
+    public long rows;              // one bit per square, row by row
+    public long offsets;           // OFFSET_BITS per movable coordinate
+
+    /**
+     * Builds the compact version of a board
+     *
+     * @param b - Board
+     */
+    public BitBoard(Board b)
+    {
+        if (b.board_size != Board.BOARD_SIZE)
+            throw new IllegalArgumentException("A BitBoard only holds " + Board.BOARD_SIZE + "x" + Board.BOARD_SIZE +
+                                               " boards, use a WideBitBoard for " + b.board_size + "x" + b.board_size);
+        piece_count = b.piece_count;
+        goal_piece = b.findPiece("X0");
+        dx = new int[piece_count];
+        dy = new int[piece_count];
+        move_direction = new int[piece_count];
+        x_slot = new int[piece_count];
+        y_slot = new int[piece_count];
+        fixed_x = new int[piece_count];
+        fixed_y = new int[piece_count];
+        shape = new long[piece_count];
+        rowShape = new long[piece_count];
+
+        int slots = 0;
+        for (int i = 0; i < piece_count; i++) {
+            Piece p = b.piece_list[i];
+            dx[i] = p.dx;
+            dy[i] = p.dy;
+            move_direction[i] = p.move_direction;
+            // A piece only needs an offset for the coordinates it can change
+            if (p.move_direction == Piece.EAST_WEST || p.move_direction == Piece.NSEW)
+                x_slot[i] = slots++;
+            else
+                x_slot[i] = -1;
+            if (p.move_direction == Piece.NORTH_SOUTH || p.move_direction == Piece.NSEW)
+                y_slot[i] = slots++;
+            else
+                y_slot[i] = -1;
+            fixed_x[i] = p.x;
+            fixed_y[i] = p.y;
+            for (int x = 0; x < p.dx; x++)
+                for (int y = 0; y < p.dy; y++) {
+                    shape[i] |= 1L << cell(x, y);
+                    rowShape[i] |= 1L << rowCell(x, y);
+                }
+        }
+        if (slots > MAX_SLOTS)
+            throw new IllegalArgumentException("Too many pieces for a BitBoard: " + piece_count);
+
+        for (int i = 0; i < piece_count; i++) {
+            setX(i, b.piece_list[i].x);
+            setY(i, b.piece_list[i].y);
+            occupied |= pieceMask(i);
+            rows |= rowShape[i] << rowCell(getX(i), getY(i));
+        }
+    }
+
+    /**
+     * Copy constructor. Only the state is copied, the layout is shared.
+     *
+     * @param b - BitBoard
+     */
+    public BitBoard(BitBoard b)
+    {
+        piece_count = b.piece_count;
+        goal_piece = b.goal_piece;
+        dx = b.dx;
+        dy = b.dy;
+        move_direction = b.move_direction;
+        x_slot = b.x_slot;
+        y_slot = b.y_slot;
+        fixed_x = b.fixed_x;
+        fixed_y = b.fixed_y;
+        shape = b.shape;
+        rowShape = b.rowShape;
+        occupied = b.occupied;
+        rows = b.rows;
+        offsets = b.offsets;
+    }
+
+    /**
+     * Bit of the square x, y in the occupancy mask
+     *
+     * @param x - column
+     * @param y - row
+     * @return bit index
+     */
+    static int cell(int x, int y)
+    {
+        return x * Board.BOARD_SIZE + y;
+    }
+
+    /**
+     * Bit of the square x, y in the row by row mask
+     *
+     * @param x - column
+     * @param y - row
+     * @return bit index
+     */
+    static int rowCell(int x, int y)
+    {
+        return y * ROW_BITS + x;
+    }
+
+    public int getX(int i)
+    {
+        if (x_slot[i] < 0)
+            return fixed_x[i];
+        return (int) (offsets >>> (x_slot[i] * OFFSET_BITS) & OFFSET_MASK);
+    }
+
+    public int getY(int i)
+    {
+        if (y_slot[i] < 0)
+            return fixed_y[i];
+        return (int) (offsets >>> (y_slot[i] * OFFSET_BITS) & OFFSET_MASK);
+    }
+
+    private void setX(int i, int x)
+    {
+        if (x_slot[i] >= 0) {
+            int shift = x_slot[i] * OFFSET_BITS;
+            offsets = (offsets & ~(OFFSET_MASK << shift)) | ((long) x << shift);
+        }
+    }
+
+    private void setY(int i, int y)
+    {
+        if (y_slot[i] >= 0) {
+            int shift = y_slot[i] * OFFSET_BITS;
+            offsets = (offsets & ~(OFFSET_MASK << shift)) | ((long) y << shift);
+        }
+    }
+
+    /**
+     * Squares covered by piece i in the current state
+     *
+     * @param i - piece index
+     * @return occupancy mask of the piece
+     */
+    public long pieceMask(int i)
+    {
+        return shape[i] << cell(getX(i), getY(i));
+    }
+
+    private boolean isEmpty(int x, int y)
+    {
+        return (occupied & (1L << cell(x, y))) == 0;
+    }
+
+    private void place(int i)
+    {
+        occupied |= pieceMask(i);
+        rows |= rowShape[i] << rowCell(getX(i), getY(i));
+    }
+
+    private void remove(int i)
+    {
+        occupied &= ~pieceMask(i);
+        rows &= ~(rowShape[i] << rowCell(getX(i), getY(i)));
+    }
+
+    /**
+     * The offsets word holds the complete position, so it doubles as an exact
+     * key for the state.
+     *
+     * @return packed piece offsets
+     */
+    public long state()
+    {
+        return offsets;
+    }
+
+    /**
+     * Moves every piece to the position held in a key returned by state()
+     *
+     * @param s - packed piece offsets
+     */
+    public void setState(long s)
+    {
+        offsets = s;
+        occupied = 0;
+        rows = 0;
+        for (int i = 0; i < piece_count; i++)
+            place(i);
+    }
+
+    /**
+     * Generate the list of possible moves for the current state. The moves and
+     * their order are the same as Board.genMoves() gives for the same position.
+     *
+     * @return Move
+     */
+    Move genMoves()
+    {
+        int moves[] = new int[Board.MAX_MOVES];
+        return toList(moves, genMoves(moves));
+    }
+
+    private static Move toList(int moves[], int n)
+    {
+        Move result = null;
+        for (int k = n - 1; k >= 0; k--)
+            result = new Move(moves[k], result);
+        return result;
+    }
+
+    /**
+     * Generate the possible moves for the current state into a buffer the
+     * caller reuses, packed by Move.pack(), in the same order as genMoves().
+     *
+     * @param moves - int[] of at least Board.MAX_MOVES entries
+     * @return number of moves
+     */
+    int genMoves(int moves[])
+    {
+        int n = 0;
+        int i, j;
+        for (i = 0; i < piece_count; i++)
+            n = slides(i, getX(i), getY(i), dx[i], dy[i], move_direction[i], i == goal_piece,
+                       occupied, rows, moves, n);
+        // Board builds its list last move first, so reverse to match its order
+        for (i = 0, j = n - 1; i < j; i++, j--) {
+            int temp = moves[i];
+            moves[i] = moves[j];
+            moves[j] = temp;
+        }
+        return n;
+    }
+
+    /**
+     * Adds the slides of one piece to a move buffer, in the order Board finds
+     * them. The squares of the column (or row) the piece slides along come out
+     * of the masks with one shift, the piece's other column (or row) ORed in
+     * for 2x2 pieces, and the free squares on each side are counted with a
+     * bit scan instead of being tested one at a time.
+     *
+     * @param i         - piece index
+     * @param x         - column of the piece
+     * @param y         - row of the piece
+     * @param dx        - width of the piece
+     * @param dy        - height of the piece
+     * @param direction - Piece.NORTH_SOUTH, EAST_WEST or NSEW
+     * @param goal      - the piece is X0
+     * @param occupied  - column by column occupancy, bit x*BOARD_SIZE+y
+     * @param rows      - row by row occupancy, bit y*(BOARD_SIZE+1)+x
+     * @param moves     - move buffer
+     * @param n         - moves already in the buffer
+     * @return moves in the buffer
+     */
+    static int slides(int i, int x, int y, int dx, int dy, int direction, boolean goal,
+                      long occupied, long rows, int moves[], int n)
+    {
+        int j, run;
+        if (direction == Piece.NORTH_SOUTH || direction == Piece.NSEW) {
+            int lane = (int) ((occupied >>> x * COLUMN_BITS) | (occupied >>> (x + dx - 1) * COLUMN_BITS)) & BOARD_COLUMN;
+            // North: free squares above, the top edge counting as a blocker
+            int top = y + dy;
+            run = Math.min(Integer.numberOfTrailingZeros((lane >>> top) | (1 << (Board.BOARD_SIZE - top))), MAX_SLIDE);
+            for (j = 1; j <= run; j++)
+                moves[n++] = Move.pack(i, Move.NORTH, j);
+            // South: free squares below, down to the highest blocker
+            run = Math.min(y - (32 - Integer.numberOfLeadingZeros(lane & ((1 << y) - 1))), MAX_SLIDE);
+            for (j = 1; j <= run; j++)
+                moves[n++] = Move.pack(i, Move.SOUTH, j);
+        }
+        if (direction == Piece.EAST_WEST || direction == Piece.NSEW) {
+            int full = (int) ((rows >>> y * ROW_BITS) | (rows >>> (y + dy - 1) * ROW_BITS)) & ((1 << ROW_BITS) - 1);
+            int lane = full & BOARD_COLUMN;
+            int left = x + dx;
+            // X0 standing in the exit has no square of the board to its east
+            int free = left >= Board.BOARD_SIZE ? 0 :
+                    Integer.numberOfTrailingZeros((lane >>> left) | (1 << (Board.BOARD_SIZE - left)));
+            run = Math.min(free, MAX_SLIDE);
+            for (j = 1; j <= run; j++)
+                moves[n++] = Move.pack(i, Move.EAST, j);
+            // X0 can slide on into the exit column: Board tries the square
+            // after the last East slide, which is the exit when the row is clear
+            if (goal && y == Board.BOARD_EXIT_Y && left < Board.BOARD_EXIT_X) {
+                j = run + 1;
+                if (j <= free || (left + j - 1 == Board.BOARD_EXIT_X && (full & (1 << Board.BOARD_EXIT_X)) == 0))
+                    moves[n++] = Move.pack(i, Move.EAST, j);
+            }
+            run = Math.min(x - (32 - Integer.numberOfLeadingZeros(lane & ((1 << x) - 1))), MAX_SLIDE);
+            for (j = 1; j <= run; j++)
+                moves[n++] = Move.pack(i, Move.WEST, j);
+        }
+        return n;
+    }
+
+    /**
+     * Generate the moves that lead back to the states this one can be reached
+     * from. Every slide can be undone by sliding back, so these are the moves
+     * of genMoves(), except at the goal: X0 can slide into the exit further
+     * than genMoves() lets a piece slide back, so those slides are added, and
+     * X0 one square short of the exit cannot slide into it, so sliding X0
+     * back by one is left out.
+     *
+     * @return Move
+     */
+    Move genReverseMoves()
+    {
+        int moves[] = new int[Board.MAX_MOVES];
+        return toList(moves, genReverseMoves(moves));
+    }
+
+    /**
+     * genReverseMoves() into a buffer the caller reuses
+     *
+     * @param moves - int[] of at least Board.MAX_MOVES entries
+     * @return number of moves
+     */
+    int genReverseMoves(int moves[])
+    {
+        int n = genMoves(moves);
+        if (isGoal()) {
+            int x = getX(goal_piece);
+            int y = getY(goal_piece);
+            int one = Move.pack(goal_piece, Move.WEST, 1);
+            int k = 0;
+            for (int i = 0; i < n; i++)
+                if (moves[i] != one)
+                    moves[k++] = moves[i];
+            n = k;
+            for (int j = 1; x - j >= 0; j++) {
+                if (!isEmpty(x - j, y) || !isEmpty(x - j, y + dy[goal_piece] - 1))
+                    break;
+                if (j >= Board.BOARD_INDEX)
+                    moves[n++] = Move.pack(goal_piece, Move.WEST, j);
+            }
+        }
+        return n;
+    }
+
+    /**
+     * Lists every state of this layout in which no two pieces overlap
+     *
+     * @param goalsOnly - only list the states with X0 at the exit
+     * @param limit     - most states to list
+     * @return the states, or null if there are more than limit
+     */
+    public long[] enumerate(boolean goalsOnly, int limit)
+    {
+        Enumeration e = new Enumeration(new BitBoard(this), goalsOnly, limit);
+        if (!e.place(0, 0))
+            return null;
+        long result[] = new long[e.size];
+        System.arraycopy(e.states, 0, result, 0, e.size);
+        return result;
+    }
+
+    /**
+     * Depth first placement of the pieces one at a time, for enumerate()
+     */
+    private static class Enumeration
+    {
+        BitBoard b;
+        boolean goalsOnly;
+        int limit;
+        long states[] = new long[1024];
+        int size;
+
+        Enumeration(BitBoard b, boolean goalsOnly, int limit)
+        {
+            this.b = b;
+            this.goalsOnly = goalsOnly;
+            this.limit = limit;
+        }
+
+        /**
+         * @return false once more than limit states have been found
+         */
+        boolean place(int i, long occupied)
+        {
+            if (i == b.piece_count) {
+                if (size == limit)
+                    return false;
+                if (size == states.length) {
+                    long grown[] = new long[size * 2];
+                    System.arraycopy(states, 0, grown, 0, size);
+                    states = grown;
+                }
+                states[size++] = b.offsets;
+                return true;
+            }
+            int maxX = b.x_slot[i] < 0 ? b.fixed_x[i] : Board.BOARD_SIZE - b.dx[i];
+            int maxY = b.y_slot[i] < 0 ? b.fixed_y[i] : Board.BOARD_SIZE - b.dy[i];
+            for (int x = b.x_slot[i] < 0 ? b.fixed_x[i] : 0; x <= maxX; x++)
+                for (int y = b.y_slot[i] < 0 ? b.fixed_y[i] : 0; y <= maxY; y++) {
+                    if (i == b.goal_piece && goalsOnly)
+                        continue;
+                    if (!fit(i, x, y, occupied))
+                        return false;
+                }
+            // X0 is the only piece that can stand in the exit column
+            if (i == b.goal_piece)
+                return fit(i, Board.BOARD_EXIT_X - 1, Board.BOARD_EXIT_Y, occupied);
+            return true;
+        }
+
+        private boolean fit(int i, int x, int y, long occupied)
+        {
+            long mask = b.shape[i] << cell(x, y);
+            if ((mask & occupied) != 0)
+                return true;
+            b.setX(i, x);
+            b.setY(i, y);
+            return place(i + 1, occupied | mask);
+        }
+    }
+
+    /**
+     * make sent move
+     *
+     * @param m - Move
+     */
+    public void makeMove(Move m)
+    {
+        slide(m.piece_index, m.direction, m.spaces);
+    }
+
+    /**
+     * reverse move
+     *
+     * @param m - Move
+     */
+    public void reverseMove(Move m)
+    {
+        reverseMove(m.pack());
+    }
+
+    /**
+     * make a move packed by Move.pack()
+     *
+     * @param m - packed move
+     */
+    public void makeMove(int m)
+    {
+        slide(Move.pieceOf(m), Move.directionOf(m), Move.spacesOf(m));
+    }
+
+    /**
+     * reverse a move packed by Move.pack()
+     *
+     * @param m - packed move
+     */
+    public void reverseMove(int m)
+    {
+        makeMove(Move.opposite(m));
+    }
+
+    private void slide(int i, int direction, int spaces)
+    {
+        remove(i);
+        if (direction == Move.NORTH)
+            setY(i, getY(i) + spaces);
+        else if (direction == Move.SOUTH)
+            setY(i, getY(i) - spaces);
+        else if (direction == Move.EAST)
+            setX(i, getX(i) + spaces);
+        else // Move.WEST
+            setX(i, getX(i) - spaces);
+        place(i);
+    }
+
+    /**
+     * Return true is board is in goal state
+     *
+     * @return boolean
+     */
+    public boolean isGoal()
+    {
+        return goal_piece >= 0 && getY(goal_piece) == Board.BOARD_EXIT_Y &&
+                getX(goal_piece) == Board.BOARD_EXIT_X - 1;
+    }
+}
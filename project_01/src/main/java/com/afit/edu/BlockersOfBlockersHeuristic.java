@@ -0,0 +1,60 @@
+package com.afit.edu;
+
+/**
+ * Adds a second level to BlockingHeuristic. A vertical blocker has to slide
+ * north or south off the exit row; if every way off is covered by vehicles
+ * that are not already counted, one of those vehicles has to move as well.
+ * Blockers are only counted this way when their sets of covering vehicles do
+ * not overlap, so no vehicle is counted twice and the estimate stays
+ * admissible.
+ */
+class BlockersOfBlockersHeuristic extends BlockingHeuristic
+{
+    public int estimate(BitBoard b)
+    {
+        if (b.isGoal())
+            return 0;
+        long blocking = blockers(b, exitPath(b));
+        int h = 1 + Long.bitCount(blocking);
+
+        // X0 and the blockers already count, so they never add a move
+        long counted = blocking | (1L << b.goal_piece);
+        long used = 0;
+        for (int i = 0; i < b.piece_count; i++) {
+            if ((blocking & (1L << i)) == 0 || b.move_direction[i] != Piece.NORTH_SOUTH)
+                continue;
+            long covering = 0;
+            boolean free = false;
+            int x = b.getX(i);
+            int y = b.getY(i);
+            // North: the bottom of the piece ends up just above the exit row
+            if (Board.BOARD_EXIT_Y + b.dy[i] <= Board.BOARD_INDEX) {
+                long others = blockers(b, column(x, y + b.dy[i], Board.BOARD_EXIT_Y + b.dy[i])) & ~counted;
+                free |= others == 0;
+                covering |= others;
+            }
+            // South: the top of the piece ends up just below the exit row
+            if (Board.BOARD_EXIT_Y - b.dy[i] >= 0) {
+                long others = blockers(b, column(x, Board.BOARD_EXIT_Y - b.dy[i], y - 1)) & ~counted;
+                free |= others == 0;
+                covering |= others;
+            }
+            if (!free && covering != 0 && (covering & used) == 0) {
+                used |= covering;
+                h++;
+            }
+        }
+        return h;
+    }
+
+    /**
+     * Squares from y1 to y2 in column x
+     */
+    private static long column(int x, int y1, int y2)
+    {
+        long result = 0;
+        for (int y = y1; y <= y2; y++)
+            result |= 1L << BitBoard.cell(x, y);
+        return result;
+    }
+}
@@ -0,0 +1,51 @@
+package com.afit.edu;
+
+/**
+ * Counts the vehicles between X0 and the exit. Each of them has to move at
+ * least once, and so does X0 unless it is already out.
+ */
+class BlockingHeuristic implements Heuristic
+{
+    public int estimate(BitBoard b)
+    {
+        if (b.isGoal())
+            return 0;
+        return 1 + Long.bitCount(blockers(b, exitPath(b)));
+    }
+
+    /**
+     * Squares X0 still has to pass through to reach the exit
+     *
+     * @param b - BitBoard
+     * @return occupancy mask of the squares, 0 if X0 is not on the exit row
+     */
+    static long exitPath(BitBoard b)
+    {
+        int x0 = b.goal_piece;
+        if (x0 < 0 || b.getY(x0) != Board.BOARD_EXIT_Y)
+            return 0;
+        long path = 0;
+        for (int x = b.getX(x0) + b.dx[x0]; x <= Board.BOARD_INDEX; x++)
+            for (int y = 0; y < b.dy[x0]; y++)
+                path |= 1L << BitBoard.cell(x, Board.BOARD_EXIT_Y + y);
+        return path;
+    }
+
+    /**
+     * Finds the pieces covering any of the given squares, X0 excluded
+     *
+     * @param b       - BitBoard
+     * @param squares - occupancy mask
+     * @return one bit per piece index
+     */
+    static long blockers(BitBoard b, long squares)
+    {
+        long result = 0;
+        if ((b.occupied & squares) == 0)
+            return result;
+        for (int i = 0; i < b.piece_count; i++)
+            if (i != b.goal_piece && (b.pieceMask(i) & squares) != 0)
+                result |= 1L << i;
+        return result;
+    }
+}
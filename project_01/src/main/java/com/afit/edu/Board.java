@@ -11,26 +11,62 @@ package com.afit.edu;
 public class Board
 {
     static final int PIECE_COUNT = 30;
+    // Size of the standard board; other sizes are set per Board
     static final int BOARD_SIZE = 6;
     static final int BOARD_INDEX = 5;  // 1 - BOARD_SIZE
     // Where the exit is so that this can be expanded to different board sizes
     static final int BOARD_EXIT_X = 6;
     static final int BOARD_EXIT_Y = 3;
+    // Largest board size handled
+    static final int MAX_SIZE = 10;
+    // Most moves a board can have, for move buffers
+    static final int MAX_MOVES = PIECE_COUNT * 4 * MAX_SIZE;
     
     static final boolean SAFARI = false;
     
+    // Random number for every piece on every square, for the Zobrist hash
+    static final long ZOBRIST[][][] = new long[PIECE_COUNT][MAX_SIZE+1][MAX_SIZE];
+    static {
+      java.util.Random random = new java.util.Random(523);
+      for ( int p = 0; p < PIECE_COUNT; p++ )
+        for ( int i = 0; i < MAX_SIZE+1; i++ )
+          for ( int j = 0; j < MAX_SIZE; j++ )
+            ZOBRIST[p][i][j] = random.nextLong();
+    }
+
     public int theBoard[][];     //version of workspace array
     public Piece piece_list[];
     public int piece_count = 0;
     public Move move_list;
+    public long zobrist;         //xor of ZOBRIST for every occupied square
+    public long occupied, rows;  //occupied squares column by column and row by row, standard size only
+    public final int board_size; //squares along each side
+    public final int board_index; //1 - board_size
+    public final int exit_x, exit_y; //where the exit is
 
     /**
      * Board constructor
      */
     public Board() {
-      theBoard = new int[BOARD_SIZE+1][BOARD_SIZE];
-      for ( int i = 0; i < BOARD_SIZE+1; i++ )
-        for ( int j = 0; j < BOARD_SIZE; j++ )
+      this(BOARD_SIZE);
+    }
+
+    /**
+     * Board constructor for other sizes. The exit is on the east side, in
+     * the third row from the top as on the standard board.
+     *
+     * @param size int squares along each side, up to MAX_SIZE
+     */
+    public Board(int size) {
+      if ( size < 3 || size > MAX_SIZE )
+        throw new IllegalArgumentException("Board size " + size + " is not between 3 and " + MAX_SIZE);
+      board_size = size;
+      board_index = size - 1;
+      exit_x = size;
+      exit_y = size - 3;
+      theBoard = new int[board_size+1][board_size];
+      for ( int i = 0; i < board_size+1; i++ )
+        for ( int j = 0; j < board_size; j++ )
           theBoard[i][j] = -1;
       piece_list = new Piece[PIECE_COUNT];
       move_list = null;
@@ -42,19 +78,37 @@ public class Board
      * @param b Board
      */
     public Board(Board b) {
+    	this(b, true);
+    }
+
+    /**
+     * Copy constructor that can leave out the moves that got us here, for
+     * searches that keep track of the path themselves.
+     *
+     * @param b Board
+     * @param copyMoves boolean
+     */
+    public Board(Board b, boolean copyMoves) {
+    	board_size = b.board_size;
+    	board_index = b.board_index;
+    	exit_x = b.exit_x;
+    	exit_y = b.exit_y;
     	// Create the board
-    	theBoard = new int[BOARD_SIZE+1][BOARD_SIZE];
+    	theBoard = new int[board_size+1][board_size];
     	// Copy the existing board
-    	for ( int i = 0; i < BOARD_SIZE+1; i++ )
-    	  for ( int j = 0; j < BOARD_SIZE; j++ )
+    	for ( int i = 0; i < board_size+1; i++ )
+    	  for ( int j = 0; j < board_size; j++ )
     		theBoard[i][j] = b.theBoard[i][j];
     	// Copy the pieces
         piece_list = new Piece[PIECE_COUNT];
         piece_count = b.piece_count;
     	for( int i = 0; i < b.piece_count; i++)
     		piece_list[i] = new Piece(b.piece_list[i]);
+    	zobrist = b.zobrist;
+    	occupied = b.occupied;
+    	rows = b.rows;
     	// Copy the moves that got us here
-    	if ( b.move_list != null ) {
+    	if ( copyMoves && b.move_list != null ) {
     	  Move ptr, b_ptr;
     	  Move temp = new Move(b.move_list);
     	  ptr = move_list = temp;
@@ -83,6 +137,35 @@ public class Board
     	importSafariBoard(newBoard);
       else
     	importRushBoard(newBoard);
+      rehash();
+    }
+
+    /**
+     * Recomputes the Zobrist hash and the occupancy masks from theBoard. Only
+     * needed after theBoard has been changed by hand; the moves keep them up
+     * to date.
+     */
+    public void rehash() {
+      zobrist = 0;
+      occupied = rows = 0;
+      for ( int i = 0; i < board_size+1; i++ )
+        for ( int j = 0; j < board_size; j++ )
+          if ( theBoard[i][j] != -1 ) {
+            zobrist ^= ZOBRIST[theBoard[i][j]][i][j];
+            if ( board_size == BOARD_SIZE )
+              flip(i, j);
+          }
+    }
+
+    /**
+     * Flips the bits of one square in the occupancy masks
+     *
+     * @param x int column
+     * @param y int row
+     */
+    private void flip(int x, int y) {
+      occupied ^= 1L << (x*BitBoard.COLUMN_BITS + y);
+      rows ^= 1L << BitBoard.rowCell(x, y);
     }
     
     private void importSafariBoard(String[][] newBoard) {
@@ -90,9 +173,9 @@ public class Board
       int col, row;
       // For the Board class, x and y origin is bottom left
       // For the newBoard string, x and y origin is upper left
-      for (int x = 0; x < BOARD_SIZE; x++ )
-        for (int y = 0; y < BOARD_SIZE; y++ ){
-          row = BOARD_INDEX - x;
+      for (int x = 0; x < board_size; x++ )
+        for (int y = 0; y < board_size; y++ ){
+          row = board_index - x;
           col = y;
           // First make sure that this piece is not in the piece list
           if ( (i = findPiece( newBoard[x][y] )) >= 0 ) {
@@ -102,12 +185,12 @@ public class Board
           // This is a new 1x3 (Elephants and Rhinos)
           if (newBoard[x][y].charAt(0) == 'E' || newBoard[x][y].charAt(0) == 'R' ) {
             // Which direction is this object facing?
-            if ( x + 1 <= BOARD_INDEX )
+            if ( x + 1 <= board_index )
               if (newBoard[x + 1][y].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x + 1][y].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 1, 3,
                     Piece.NORTH_SOUTH, newBoard[x][y]); // East West
-            if ( y + 1 <= BOARD_INDEX )
+            if ( y + 1 <= board_index )
               if (newBoard[x][y + 1].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x][y+1].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 3, 1,
@@ -118,12 +201,12 @@ public class Board
           if (newBoard[x][y].charAt(0) == 'L' || newBoard[x][y].charAt(0) == 'C' ||
               newBoard[x][y].charAt(0) == 'Z' || newBoard[x][y].charAt(0) == 'I') {
             // Which direction is this object facing?
-            if ( x + 1 <= BOARD_INDEX )
+            if ( x + 1 <= board_index )
               if (newBoard[x + 1][y].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x + 1][y].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 1, 2,
                     Piece.NORTH_SOUTH, newBoard[x][y]); // East West
-            if ( y + 1 <= BOARD_INDEX )
+            if ( y + 1 <= board_index )
               if (newBoard[x][y + 1].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x][y + 1].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 2, 1,
@@ -152,9 +235,9 @@ public class Board
       int col, row;
       // For the Board class, x and y origin is bottom left
       // For the newBoard string, x and y origin is upper left
-      for (int x = 0; x < BOARD_SIZE; x++ )
-        for (int y = 0; y < BOARD_SIZE; y++ ){
-          row = BOARD_INDEX - x;
+      for (int x = 0; x < board_size; x++ )
+        for (int y = 0; y < board_size; y++ ){
+          row = board_index - x;
           col = y;
           // First make sure that this piece is not in the piece list
           if ( (i = findPiece( newBoard[x][y] )) >= 0 ) {
@@ -164,12 +247,12 @@ public class Board
           // This is a new 1x3 (Truck)
           if (newBoard[x][y].charAt(0) >= 'O' && newBoard[x][y].charAt(0) <= 'R' ) {
             // Which direction is this object facing?
-            if ( x + 1 <= BOARD_INDEX )
+            if ( x + 1 <= board_index )
               if (newBoard[x + 1][y].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x + 1][y].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 1, 3,
                     Piece.NORTH_SOUTH, newBoard[x][y]); // North South
-            if ( y + 1 <= BOARD_INDEX )
+            if ( y + 1 <= board_index )
               if (newBoard[x][y + 1].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x][y+1].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 3, 1,
@@ -179,12 +262,12 @@ public class Board
           // This is a new 1x2 (Car)
           if (newBoard[x][y].charAt(0) >= 'A' && newBoard[x][y].charAt(0) <= 'N') {
             // Which direction is this object facing?
-            if ( x + 1 <= BOARD_INDEX )
+            if ( x + 1 <= board_index )
               if (newBoard[x + 1][y].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x + 1][y].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 1, 2,
                     Piece.NORTH_SOUTH, newBoard[x][y]); // North South
-            if ( y + 1 <= BOARD_INDEX )
+            if ( y + 1 <= board_index )
               if (newBoard[x][y + 1].charAt(0) == newBoard[x][y].charAt(0) &&
                   newBoard[x][y + 1].charAt(1) == newBoard[x][y].charAt(1) )
                 piece_list[piece_count++] = new Piece(col, row, 2, 1,
@@ -194,12 +277,12 @@ public class Board
           // This is the car
           if (newBoard[x][y].charAt(0) == 'X' ) {
             // Which direction is this object facing?
-            if ( x + 1 <= BOARD_INDEX )
+            if ( x + 1 <= board_index )
                 if (newBoard[x + 1][y].charAt(0) == newBoard[x][y].charAt(0) &&
                     newBoard[x + 1][y].charAt(1) == newBoard[x][y].charAt(1) )
                   piece_list[piece_count++] = new Piece(col, row, 1, 2,
                       Piece.NORTH_SOUTH, newBoard[x][y]); // North South
-              if ( y + 1 <= BOARD_INDEX )
+              if ( y + 1 <= board_index )
                 if (newBoard[x][y + 1].charAt(0) == newBoard[x][y].charAt(0) &&
                     newBoard[x][y + 1].charAt(1) == newBoard[x][y].charAt(1) )
                   piece_list[piece_count++] = new Piece(col, row, 2, 1,
@@ -231,18 +314,58 @@ public class Board
      */
     Move genMoves()
     {
+      int moves[] = new int[MAX_MOVES];
       //linked list of all possible moves
       Move result = null;
+      for ( int k = genMoves(moves) - 1; k >= 0; k-- )
+        result = new Move(moves[k], result);
+      return result;
+    }
+
+    /**
+     * Generate the possible moves for the current search node into a buffer
+     * the caller reuses, packed by Move.pack(). The moves come out in the same
+     * order as the list from genMoves().
+     *
+     * @param moves int[] of at least MAX_MOVES entries
+     * @return int number of moves
+     */
+    int genMoves(int moves[])
+    {
+      if ( board_size != BOARD_SIZE )
+        return genMovesBySquare(moves);
+      int n = 0;
+      // The standard board keeps occupancy masks, so each lane is read
+      // with a shift and a bit scan instead of square by square
+      for ( int i = 0; i < piece_count; i++ ) {
+        Piece p = piece_list[i];
+        n = BitBoard.slides(i, p.x, p.y, p.dx, p.dy, p.move_direction,
+                            p.name.equals("X0"), occupied, rows, moves, n);
+      }
+      return reverse(moves, n);
+    }
+
+    /**
+     * genMoves() read square by square from theBoard, for the board sizes
+     * without occupancy masks. On the standard board it gives the same moves
+     * in the same order, which the tests check the masks against.
+     *
+     * @param moves int[] of at least MAX_MOVES entries
+     * @return int number of moves
+     */
+    int genMovesBySquare(int moves[])
+    {
+      int n = 0;
       int i, j;
       // For each piece on the board
       for (i = 0; i < piece_count; i++ ) {
         // If it can move North and South (Up/Down)
         if ( piece_list[i].move_direction == Piece.NORTH_SOUTH ||
              piece_list[i].move_direction == Piece.NSEW ) {
-          for ( j = 1; j < BOARD_INDEX; j++ ) {
+          for ( j = 1; j < board_index; j++ ) {
             // Can we move North 'j' squares?
             // First do a bounds check
-            if ( piece_list[i].y + piece_list[i].dy + j - 1 > BOARD_INDEX )
+            if ( piece_list[i].y + piece_list[i].dy + j - 1 > board_index )
               break;
             // Then check for colliding pieces
             if ( theBoard[piece_list[i].x][piece_list[i].y + piece_list[i].dy + j - 1] == -1 ) {
@@ -250,13 +373,12 @@ public class Board
               if ( piece_list[i].dx != 1 )
                 if ( theBoard[piece_list[i].x + piece_list[i].dx - 1][piece_list[i].y + piece_list[i].dy + j - 1] != -1 )
                   break;
-              Move m = new Move(i, Move.NORTH, j, result );
-              result = m;
+              moves[n++] = Move.pack(i, Move.NORTH, j);
             }
             else
               break;
           }
-          for ( j = 1; j < BOARD_INDEX; j++ ) {
+          for ( j = 1; j < board_index; j++ ) {
             // Can we move South 'j' squares?
             // First do a bounds check
             if ( piece_list[i].y - j < 0 )
@@ -267,8 +389,7 @@ public class Board
               if ( piece_list[i].dx != 1 )
                 if ( theBoard[piece_list[i].x + piece_list[i].dx - 1][piece_list[i].y - j] != -1 )
                   break;
-              Move m = new Move(i, Move.SOUTH, j, result );
-              result = m;
+              moves[n++] = Move.pack(i, Move.SOUTH, j);
             }
             else
               break;
@@ -277,10 +398,10 @@ public class Board
         // If it can move East and West (Left/Right)
         if ( piece_list[i].move_direction == Piece.EAST_WEST ||
              piece_list[i].move_direction == Piece.NSEW ) {
-          for ( j = 1; j < BOARD_INDEX; j++ ) {
+          for ( j = 1; j < board_index; j++ ) {
             // Can we move East 'j' squares?
             // First do a bounds check
-            if ( piece_list[i].x + piece_list[i].dx + j -1  > BOARD_INDEX )
+            if ( piece_list[i].x + piece_list[i].dx + j -1  > board_index )
               break;
             // Then check for colliding pieces
             if ( theBoard[piece_list[i].x + piece_list[i].dx + j -1][piece_list[i].y] == -1 ) {
@@ -288,21 +409,19 @@ public class Board
               if ( piece_list[i].dy != 1 )
                 if ( theBoard[piece_list[i].x + piece_list[i].dx + j - 1] [piece_list[i].y + piece_list[i].dy -1] != -1 )
                   break;
-              Move m = new Move(i, Move.EAST, j , result );
-              result = m;
+              moves[n++] = Move.pack(i, Move.EAST, j);
             }
             else
               break;
           }
-          if ( piece_list[i].name.equals("X0") && piece_list[i].y == BOARD_EXIT_Y && 
-        	  (piece_list[i].x + piece_list[i].dx) < BOARD_EXIT_X) {
+          if ( piece_list[i].name.equals("X0") && piece_list[i].y == exit_y && 
+        	  (piece_list[i].x + piece_list[i].dx) < exit_x) {
             if ( theBoard[piece_list[i].x + piece_list[i].dx + j - 1][piece_list[i].y] == -1 &&
                  theBoard[piece_list[i].x + piece_list[i].dx + j - 1][piece_list[i].y + piece_list[i].dy - 1] == -1 ) {
-              Move m = new Move (i, Move.EAST, j, result );
-              result = m;
+              moves[n++] = Move.pack(i, Move.EAST, j);
             }
           }
-          for ( j = 1; j < BOARD_INDEX; j++ ) {
+          for ( j = 1; j < board_index; j++ ) {
             // Can we move West 'j' squares?
             // First do a bounds check
             if ( piece_list[i].x - j < 0 )
@@ -313,16 +432,25 @@ public class Board
               if ( piece_list[i].dy != 1 )
                 if ( theBoard[piece_list[i].x - j] [piece_list[i].y + piece_list[i].dy -1] != -1 )
                   break;
-              Move m = new Move(i, Move.WEST, j, result );
-              result = m;
+              moves[n++] = Move.pack(i, Move.WEST, j);
             }
             else
               break;
           }
         }
       }
-      // Return linked list of possible moves from node
-      return result;
+      return reverse(moves, n);
+    }
+
+    // Moves were added last first in the linked list, so reverse them to match
+    private static int reverse(int moves[], int n)
+    {
+      for ( int i = 0, j = n - 1; i < j; i++, j-- ) {
+        int temp = moves[i];
+        moves[i] = moves[j];
+        moves[j] = temp;
+      }
+      return n;
     }
 
     /**
@@ -332,36 +460,8 @@ public class Board
      */
     public void makeMove(Move m)
     {
-      int x, y;
-
-      // First remove the piece from theBoard in its current location.
-      x = piece_list[m.piece_index].x;
-      y = piece_list[m.piece_index].y;
-      for ( int i = 0; i < piece_list[m.piece_index].dx; i++ )
-        for ( int j = 0; j < piece_list[m.piece_index].dy; j++ )
-          theBoard[x+i][y+j] = -1;
+      slide(m.piece_index, m.direction, m.spaces);
 
-      if (m.direction == Move.NORTH) {
-        piece_list[m.piece_index].y += m.spaces;
-      }
-      else if (m.direction == Move.SOUTH) {
-        piece_list[m.piece_index].y -= m.spaces;
-      }
-      else if (m.direction == Move.EAST) {
-        piece_list[m.piece_index].x += m.spaces;
-      }
-      else { // Move.WEST
-        piece_list[m.piece_index].x -= m.spaces;
-      }
-
-      // Now place the piece in theBoard in it's new location.
-      x = piece_list[m.piece_index].x;
-      y = piece_list[m.piece_index].y;
-      for ( int i = 0; i < piece_list[m.piece_index].dx; i++ )
-        for ( int j = 0; j < piece_list[m.piece_index].dy; j++ ) {
-          theBoard[x+i][y+j] = m.piece_index;
-        }
-      
       Move temp = new Move(m);
       temp.next = move_list;
       move_list = temp;
@@ -373,38 +473,76 @@ public class Board
      * @param m Move
      */
     public void reverseMove(Move m) {
+      slide(m.piece_index, Move.directionOf(Move.opposite(m.pack())), m.spaces);
+
+      // take the last move off the move_list
+      move_list = move_list.next;
+    }
+
+    /**
+     * make a packed move. Unlike makeMove(Move) nothing is allocated and the
+     * move is not added to move_list.
+     *
+     * @param m int move packed by Move.pack()
+     */
+    public void makeMove(int m) {
+      slide(Move.pieceOf(m), Move.directionOf(m), Move.spacesOf(m));
+    }
+
+    /**
+     * reverse a packed move made with makeMove(int)
+     *
+     * @param m int move packed by Move.pack()
+     */
+    public void reverseMove(int m) {
+      m = Move.opposite(m);
+      slide(Move.pieceOf(m), Move.directionOf(m), Move.spacesOf(m));
+    }
+
+    /**
+     * Slides a piece and updates theBoard
+     *
+     * @param index int piece index
+     * @param direction int
+     * @param spaces int
+     */
+    private void slide(int index, int direction, int spaces) {
       int x, y;
 
       // First remove the piece from theBoard in its current location.
-      x = piece_list[m.piece_index].x;
-      y = piece_list[m.piece_index].y;
-      for (int i = 0; i < piece_list[m.piece_index].dx; i++)
-        for (int j = 0; j < piece_list[m.piece_index].dy; j++)
-          theBoard[x + i][y + j] = -1;
-
-      if (m.direction == Move.NORTH) {
-        piece_list[m.piece_index].y -= m.spaces;
+      x = piece_list[index].x;
+      y = piece_list[index].y;
+      for ( int i = 0; i < piece_list[index].dx; i++ )
+        for ( int j = 0; j < piece_list[index].dy; j++ ) {
+          theBoard[x+i][y+j] = -1;
+          zobrist ^= ZOBRIST[index][x+i][y+j];
+          if ( board_size == BOARD_SIZE )
+            flip(x+i, y+j);
+        }
+
+      if (direction == Move.NORTH) {
+        piece_list[index].y += spaces;
       }
-      else if (m.direction == Move.SOUTH) {
-        piece_list[m.piece_index].y += m.spaces;
+      else if (direction == Move.SOUTH) {
+        piece_list[index].y -= spaces;
       }
-      else if (m.direction == Move.EAST) {
-        piece_list[m.piece_index].x -= m.spaces;
+      else if (direction == Move.EAST) {
+        piece_list[index].x += spaces;
       }
       else { // Move.WEST
-        piece_list[m.piece_index].x += m.spaces;
+        piece_list[index].x -= spaces;
       }
 
       // Now place the piece in theBoard in it's new location.
-      x = piece_list[m.piece_index].x;
-      y = piece_list[m.piece_index].y;
-      for (int i = 0; i < piece_list[m.piece_index].dx; i++)
-        for (int j = 0; j < piece_list[m.piece_index].dy; j++) {
-          theBoard[x + i][y + j] = m.piece_index;
+      x = piece_list[index].x;
+      y = piece_list[index].y;
+      for ( int i = 0; i < piece_list[index].dx; i++ )
+        for ( int j = 0; j < piece_list[index].dy; j++ ) {
+          theBoard[x+i][y+j] = index;
+          zobrist ^= ZOBRIST[index][x+i][y+j];
+          if ( board_size == BOARD_SIZE )
+            flip(x+i, y+j);
         }
-      
-      // take the last move off the move_list
-      move_list = move_list.next;
     }
 
     /*
@@ -415,8 +553,8 @@ public class Board
     public String toString() {
       String outString = new String();
 
-      for ( int i = 0; i < Board.BOARD_SIZE+1; i++ )
-        for ( int j = 0; j < Board.BOARD_SIZE; j++ )
+      for ( int i = 0; i < board_size+1; i++ )
+        for ( int j = 0; j < board_size; j++ )
           outString = outString.concat(String.valueOf(theBoard[i][j]));
       return outString;
     }
@@ -427,8 +565,8 @@ public class Board
      */
     public void print() {
 
-      for ( int i = Board.BOARD_SIZE-1; i >= 0; i-- ) {
-        for ( int j = 0; j < Board.BOARD_SIZE+1; j++ ) {
+      for ( int i = board_size-1; i >= 0; i-- ) {
+        for ( int j = 0; j < board_size+1; j++ ) {
           if (theBoard[j][i] == -1)
             System.out.print(".. ");
           else
@@ -445,7 +583,7 @@ public class Board
   public boolean isGoal() {
     Piece p = this.piece_list[this.findPiece("X0")];
 
-    if (p.name.equals("X0") && p.y == Board.BOARD_EXIT_Y && p.x == Board.BOARD_EXIT_X - 1) {
+    if (p.name.equals("X0") && p.y == exit_y && p.x == exit_x - 1) {
       return true;
     }
     return false;
@@ -458,10 +596,103 @@ public class Board
    */
   public String hashKey() {
     String outString = new String();
-    for (int i = 0; i < Board.BOARD_SIZE + 1; i++)
-      for (int j = 0; j < Board.BOARD_SIZE; j++)
+    for (int i = 0; i < board_size + 1; i++)
+      for (int j = 0; j < board_size; j++)
         outString = outString.concat(String.valueOf(this.theBoard[i][j]));
     return outString;
   }
 
+  /**
+   * 64-bit Zobrist hash of the board, kept up to date by every move in
+   * O(piece size). Boards with the same pieces on the same squares have the
+   * same hash, like hashKey(), and it works for any number of pieces. Being
+   * a hash, two different boards can also share one, so a visited list keyed
+   * by it may skip a board it never saw; stateKey() is exact where it fits.
+   *
+   * @return long hash of the board
+   */
+  public long zobristKey() {
+    return zobrist;
+  }
+
+  /**
+   * Packs the position of every piece into a long for the visited list. Each
+   * piece only stores the coordinates it can move along, 3 bits apiece, in the
+   * same layout as BitBoard.state(), so the key is exact for up to 21 movable
+   * coordinates.
+   *
+   * @return long key of the board
+   */
+  public long stateKey() {
+    long key = 0;
+    int shift = 0;
+    for (int i = 0; i < piece_count; i++) {
+      Piece p = piece_list[i];
+      if (p.move_direction == Piece.EAST_WEST || p.move_direction == Piece.NSEW) {
+        key |= (long)p.x << shift;
+        shift += BitBoard.OFFSET_BITS;
+      }
+      if (p.move_direction == Piece.NORTH_SOUTH || p.move_direction == Piece.NSEW) {
+        key |= (long)p.y << shift;
+        shift += BitBoard.OFFSET_BITS;
+      }
+    }
+    if (shift > BitBoard.MAX_SLOTS * BitBoard.OFFSET_BITS)
+      throw new IllegalStateException("Too many pieces for a long state key: " + piece_count);
+    if (board_size > 1 << BitBoard.OFFSET_BITS)
+      throw new IllegalStateException("Board too large for a long state key: " + board_size);
+    return key;
+  }
+
+  /**
+   * @return true if stateKey() can pack this board without throwing
+   */
+  public boolean fitsStateKey() {
+    int slots = 0;
+    for (int i = 0; i < piece_count; i++) {
+      int d = piece_list[i].move_direction;
+      if (d == Piece.EAST_WEST || d == Piece.NSEW)
+        slots++;
+      if (d == Piece.NORTH_SOUTH || d == Piece.NSEW)
+        slots++;
+    }
+    return slots <= BitBoard.MAX_SLOTS && board_size <= 1 << BitBoard.OFFSET_BITS;
+  }
+
+  /**
+   * Writes where every piece is, two bytes per piece, so the board can be
+   * put back later by restore() without keeping the whole Board.
+   *
+   * @param dst byte[] with room for 2 * piece_count bytes from at
+   * @param at int index of the first byte
+   */
+  void snapshot(byte dst[], int at) {
+    for ( int i = 0; i < piece_count; i++ ) {
+      dst[at + 2*i] = (byte)piece_list[i].x;
+      dst[at + 2*i + 1] = (byte)piece_list[i].y;
+    }
+  }
+
+  /**
+   * Moves every piece back to where a snapshot() of a board with the same
+   * pieces had it, and redraws theBoard.
+   *
+   * @param src byte[] written by snapshot()
+   * @param at int index of the first byte
+   */
+  void restore(byte src[], int at) {
+    for ( int i = 0; i < board_size+1; i++ )
+      for ( int j = 0; j < board_size; j++ )
+        theBoard[i][j] = -1;
+    for ( int i = 0; i < piece_count; i++ ) {
+      Piece p = piece_list[i];
+      p.x = src[at + 2*i];
+      p.y = src[at + 2*i + 1];
+      for ( int x = 0; x < p.dx; x++ )
+        for ( int y = 0; y < p.dy; y++ )
+          theBoard[p.x + x][p.y + y] = i;
+    }
+    rehash();
+  }
+
 }
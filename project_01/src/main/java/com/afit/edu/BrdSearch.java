@@ -1,16 +1,32 @@
 package com.afit.edu;
 
 import java.util.LinkedList;
-import java.util.Queue;
-import java.util.Hashtable;
 
+/**
+ * Breadth first search over Boards. The queue holds no boards: the nodes of
+ * the SearchTree are queued in the order of their ids, so a queue entry is
+ * just a node's parent id and packed move. Where every piece is gets saved
+ * for the nodes of every CHECKPOINT_LEVELS-th layer, and a board is rebuilt
+ * when it is taken off the queue by restoring its nearest saved ancestor and
+ * replaying the few moves below it.
+ */
 class BrdSearch implements Search
 {
+    static final int CHECKPOINT_LEVELS = 4;
+
     private Board board;
-    private int count;
     private boolean goalFound; // Have we found the goal?
-    private Queue<Board> q = new LinkedList<Board>();
-    private Hashtable<String, Integer> discoBoards = new Hashtable<String, Integer>();
+    private LongHashSet discoBoards = new LongHashSet();
+    private SearchTree tree = new SearchTree();
+    private Checkpoint older, newer; // the saved layers the queue still needs
+    private int replay[] = new int[CHECKPOINT_LEVELS]; // moves below a saved ancestor
+    private int head; // tree id of the board at the front of the queue
+    private int depth = -1; // depth of the board at the front of the queue
+    private int layerEnd; // tree id of the first board one layer deeper
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private int w_moves[] = new int[Board.MAX_MOVES]; // reused move buffer
+    private boolean exact; // key boards by Board.stateKey(), else by zobristKey()
 
     /**
      * Main constructor
@@ -19,9 +35,70 @@ class BrdSearch implements Search
      */
     public BrdSearch(Board b)
     {
-        this.board = b;
+        this.board = new Board(b, false);
+        this.exact = b.fitsStateKey();
         //Add start board to queue
-        q.offer(b);
+        discoBoards.add(key(b));
+        tree.add(-1, 0);
+        save(0, 0);
+    }
+
+    /**
+     * Where every piece is for the nodes of one layer, by node id
+     */
+    private static class Checkpoint
+    {
+        int depth;
+        int start;        // id of the first node of the layer
+        byte pieces[];    // Board.snapshot() of each node
+        int size;         // nodes saved
+
+        Checkpoint(int depth, int start, int bytes)
+        {
+            this.depth = depth;
+            this.start = start;
+            this.pieces = new byte[bytes * 16];
+        }
+    }
+
+    /**
+     * Saves the current board for a node of a checkpoint layer. Nodes of a
+     * layer get consecutive ids, so they are saved in id order.
+     *
+     * @param id    - node id
+     * @param depth - depth of the node
+     */
+    private void save(int id, int depth)
+    {
+        int bytes = 2 * board.piece_count;
+        if (newer == null || newer.depth != depth) {
+            // The queue is past every node below the older layer now
+            older = newer;
+            newer = new Checkpoint(depth, id, bytes);
+        }
+        if ((newer.size + 1) * bytes > newer.pieces.length) {
+            byte grown[] = new byte[newer.pieces.length * 2];
+            System.arraycopy(newer.pieces, 0, grown, 0, newer.size * bytes);
+            newer.pieces = grown;
+        }
+        board.snapshot(newer.pieces, newer.size++ * bytes);
+    }
+
+    /**
+     * Rebuilds the board of a node from its saved ancestor
+     *
+     * @param v     - node id
+     * @param depth - depth of the node
+     */
+    private void rebuild(int v, int depth)
+    {
+        int n = 0;
+        for (; depth % CHECKPOINT_LEVELS != 0; depth--, v = tree.parent(v))
+            replay[n++] = tree.move(v);
+        Checkpoint c = newer.depth == depth ? newer : older;
+        board.restore(c.pieces, (v - c.start) * 2 * board.piece_count);
+        while (n > 0)
+            board.makeMove(replay[--n]);
     }
 
     /**
@@ -33,8 +110,8 @@ class BrdSearch implements Search
     public String toString(Board b) {
         String outString = "";
  
-        for (int i = 0; i < Board.BOARD_SIZE + 1; i++)
-            for (int j = 0; j < Board.BOARD_SIZE; j++)
+        for (int i = 0; i < b.board_size + 1; i++)
+            for (int j = 0; j < b.board_size; j++)
                 outString = outString.concat(String.valueOf(b.theBoard[i][j]));
         return outString;
     }
@@ -50,11 +127,21 @@ class BrdSearch implements Search
         return toString(b).equals(toString(c));
     }
 
+    /**
+     * Key of a board in the visited list. The Zobrist hash is only used when
+     * the board is too large for the exact key, as a collision would drop a
+     * board the search never saw.
+     */
+    private long key(Board b)
+    {
+        return exact ? b.stateKey() : b.zobristKey();
+    }
+
     private boolean goalBoard(Board b){
         Piece p = b.piece_list[b.findPiece("X0")];
 
-        return p.name.equals("X0") && p.y == Board.BOARD_EXIT_Y &&
-                p.x == Board.BOARD_EXIT_X - 1;
+        return p.name.equals("X0") && p.y == b.exit_y &&
+                p.x == b.exit_x - 1;
     }
 
     private boolean containsCopy(LinkedList<Board> list, Board b){
@@ -110,38 +197,68 @@ class BrdSearch implements Search
     public Move findMoves()
     {
 
-        //Add start board to queue
-        while (!goalFound)
+        this.budget.start();
+        while (!goalFound && this.head < this.tree.size())
         {
-            this.board = this.q.poll();
-            this.count++; //visit node
+            // Boards enter the queue in the order they get their ids
+            int v = this.head;
+            if (v == this.layerEnd) {
+                // Every board of the next layer was queued by this one
+                this.depth++;
+                this.layerEnd = this.tree.size();
+            }
+            if (this.budget.exhausted(this.stats.expanded)) {
+                // Every board shallower than v has been checked for the goal
+                this.stats.stop(this.budget.reason(), this.depth);
+                this.stats.visited(discoBoards.size(), discoBoards.capacity());
+                return null;
+            }
+            rebuild(v, this.depth);
+            this.head++;
+            this.stats.expandedAt(this.depth); //visit node
             //Check is v is the goal board
-            assert this.board != null;
             if(this.board.isGoal()){
                 goalFound = true;
-                return this.board.move_list;
+                this.stats.stop(SearchStats.GOAL, this.depth);
+                this.stats.visited(discoBoards.size(), discoBoards.capacity());
+                return this.tree.path(v);
             }
             //Generate move list (children of v)
-            Move w_moves = this.board.genMoves();
-            Board w = null;
+            int n = this.board.genMoves(this.w_moves);
+            this.stats.generated += n;
             //Add v's children moves to the queue
-            while(w_moves != null){
-                this.board.makeMove(w_moves);
-                if (!discoBoards.containsKey(this.board.hashKey())){
-                    w = new Board(this.board);
-                    discoBoards.put(w.hashKey(),1);
-                    //Set the the previous board of w to v?
-                    this.q.offer(w);
+            for (int k = 0; k < n; k++){
+                this.board.makeMove(this.w_moves[k]);
+                if (discoBoards.add(key(this.board))){
+                    //Remember how w was reached from v
+                    int w = this.tree.add(v, this.w_moves[k]);
+                    if ((this.depth + 1) % CHECKPOINT_LEVELS == 0)
+                        save(w, this.depth + 1);
                 }
-                this.board.reverseMove(w_moves);
-                w_moves = w_moves.next;
-            } 
+                else
+                    this.stats.duplicates++;
+                this.board.reverseMove(this.w_moves[k]);
+            }
+            this.stats.frontier(this.tree.size() - this.head);
         }
+        // Every board that can be reached was checked
+        this.stats.stop(SearchStats.NO_SOLUTION, -1);
+        this.stats.visited(discoBoards.size(), discoBoards.capacity());
         return null;
     }
 
     public long nodeCount()
     {
-        return this.count;
+        return this.stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return this.stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
     }
 }
\ No newline at end of file
@@ -0,0 +1,311 @@
+package com.afit.edu;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact number of moves to the goal for every state of a piece layout. The
+ * layout is the set of pieces and the lanes they slide in; every placement of
+ * those pieces without overlaps is listed, sorted, and solved at once by a
+ * breadth first search backwards from all of its goal states.
+ *
+ * The table lives in a memory-mapped file: a header, the sorted states and
+ * one distance byte per state, 9 bytes a state. A state is found by binary
+ * search over the sorted states, not by a perfect index. Ranking the lane
+ * coordinates as mixed radix digits, as PatternDatabase does for its few
+ * pieces, would need one entry for every combination of positions, overlaps
+ * included; for the 12 and 13 piece layouts of hard.txt that is 1.5e8 to
+ * 7.5e8 entries for 22 to 72 thousand states.
+ *
+ * The header holds VERSION, which goes up whenever the states or distances a
+ * build writes change, and the layout the table was built for. A file of
+ * another version or layout, or of the wrong length, is built again instead
+ * of being read.
+ *
+ * Tables are kept open by layout, so the boards of a batch that share one
+ * map it once. At most cacheSize of them are kept, the least recently used
+ * one dropped first.
+ */
+class DistanceTable
+{
+    static final int UNSOLVABLE = 0xff;
+    private static final int MAGIC = 0x52484454; // "RHDT"
+    private static final int VERSION = 3;        // 1 had no field; 3 adds the layout
+
+    private static int cacheSize = 16;  // most tables kept open
+
+    // Tables opened so far, by layout, least recently used first
+    private static final Map<String, DistanceTable> tables =
+            new LinkedHashMap<String, DistanceTable>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, DistanceTable> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+
+    private final File file;
+    private final int size;
+    private final int header;     // bytes before the first state
+    private final MappedByteBuffer data;
+
+    private DistanceTable(File file, MappedByteBuffer data)
+    {
+        this.file = file;
+        this.data = data;
+        this.size = data.getInt(8);
+        this.header = header(data.getInt(12));
+    }
+
+    /**
+     * Finds the table for the layout of a board: already open, in a file in
+     * dir, or built and saved there.
+     *
+     * @param b   - BitBoard with the layout
+     * @param dir - directory holding the table files
+     * @return DistanceTable
+     * @throws IOException if the table cannot be read or written
+     */
+    static synchronized DistanceTable forLayout(BitBoard b, File dir) throws IOException
+    {
+        int layout[] = layout(b);
+        String key = Arrays.toString(layout);
+        DistanceTable table = tables.get(key);
+        if (table == null) {
+            File file = new File(dir, "rh-" + signature(b) + ".dtb");
+            table = file.exists() ? open(file, layout) : null;
+            if (table == null)
+                table = build(b, file);
+            tables.put(key, table);
+        }
+        return table;
+    }
+
+    /**
+     * Sets how many tables are kept open
+     *
+     * @param size - most tables kept, 0 to keep none
+     */
+    static synchronized void setCacheSize(int size)
+    {
+        cacheSize = size;
+        // The map only trims on a put, so drop the extra ones now
+        while (tables.size() > size)
+            tables.remove(tables.keySet().iterator().next());
+    }
+
+    /**
+     * The layout of a board: which piece is X0, then the size, direction of
+     * travel and fixed coordinates of every piece, -1 for a coordinate the
+     * piece moves along. Boards with the same layout share one state space.
+     *
+     * @param b - BitBoard
+     * @return goal_piece followed by dx, dy, move_direction, fixed x and
+     *         fixed y of each piece
+     */
+    static int[] layout(BitBoard b)
+    {
+        int layout[] = new int[1 + 5 * b.piece_count];
+        int k = 0;
+        layout[k++] = b.goal_piece;
+        for (int i = 0; i < b.piece_count; i++) {
+            layout[k++] = b.dx[i];
+            layout[k++] = b.dy[i];
+            layout[k++] = b.move_direction[i];
+            layout[k++] = b.x_slot[i] < 0 ? b.fixed_x[i] : -1;
+            layout[k++] = b.y_slot[i] < 0 ? b.fixed_y[i] : -1;
+        }
+        return layout;
+    }
+
+    /**
+     * Names the file of a layout by a hash of it. Two layouts can share a
+     * name; the layout in the header tells them apart.
+     *
+     * @param b - BitBoard
+     * @return signature as hex
+     */
+    static String signature(BitBoard b)
+    {
+        long h = 0;
+        for (int v : layout(b))
+            h = h * 31 + v;
+        return b.piece_count + "-" + Long.toHexString(h);
+    }
+
+    /**
+     * Header length: MAGIC, VERSION, the state count, the layout length and
+     * the layout
+     */
+    private static int header(int layoutLength)
+    {
+        return 16 + 4 * layoutLength;
+    }
+
+    /**
+     * Maps an existing table file
+     *
+     * @param file   - table file
+     * @param layout - layout() the table must have been built for
+     * @return DistanceTable, null if the table is of another version or
+     *         layout, or cut short
+     * @throws IOException if the file is not a table
+     */
+    static DistanceTable open(File file, int layout[]) throws IOException
+    {
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            MappedByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, raf.length());
+            if (data.getInt(0) != MAGIC)
+                throw new IOException(file.getName() + " is not a distance table");
+            // Tables written before the version field hold the state count there
+            if (raf.length() < header(layout.length) || data.getInt(4) != VERSION ||
+                    data.getInt(12) != layout.length)
+                return null;
+            for (int k = 0; k < layout.length; k++)
+                if (data.getInt(16 + 4 * k) != layout[k])
+                    return null;
+            if (raf.length() != header(layout.length) + 9L * data.getInt(8))
+                return null;
+            return new DistanceTable(file, data);
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Lists every state of the layout, computes the distances backwards from
+     * the goal states and writes the table.
+     *
+     * @param layout - BitBoard with the layout
+     * @param file   - table file to write
+     * @return the new table
+     * @throws IOException if the file cannot be written
+     */
+    static DistanceTable build(BitBoard layout, File file) throws IOException
+    {
+        long states[] = layout.enumerate(false, Integer.MAX_VALUE - 8);
+        Arrays.sort(states);
+        int n = states.length;
+        byte dist[] = distances(layout, states);
+        int shape[] = layout(layout);
+        int header = header(shape.length);
+
+        // Write to a temporary file first so a half written table is never opened
+        File dir = file.getAbsoluteFile().getParentFile();
+        if (dir != null && !dir.isDirectory() && !dir.mkdirs())
+            throw new IOException("Cannot create " + dir);
+        File temp = new File(file.getPath() + ".tmp");
+        RandomAccessFile raf = new RandomAccessFile(temp, "rw");
+        try {
+            long length = header + 8L * n + n;
+            raf.setLength(length);
+            MappedByteBuffer data = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, length);
+            data.putInt(MAGIC).putInt(VERSION).putInt(n).putInt(shape.length);
+            for (int v : shape)
+                data.putInt(v);
+            data.asLongBuffer().put(states);
+            data.position(header + 8 * n);
+            data.put(dist);
+            data.force();
+        }
+        finally {
+            raf.close();
+        }
+        if ((file.exists() && !file.delete()) || !temp.renameTo(file))
+            throw new IOException("Cannot rename " + temp + " to " + file);
+        return open(file, shape);
+    }
+
+    /**
+     * Moves to the goal from every state of a layout, by a breadth first
+     * search from every goal at once that goes from a state to the states
+     * that can reach it in one move
+     *
+     * @param layout - BitBoard with the layout
+     * @param states - every state of the layout, sorted
+     * @return distance of each state, UNSOLVABLE where there is no way out
+     */
+    static byte[] distances(BitBoard layout, long states[])
+    {
+        int n = states.length;
+        byte dist[] = new byte[n];
+        Arrays.fill(dist, (byte) UNSOLVABLE);
+        BitBoard b = new BitBoard(layout);
+        int queue[] = new int[n];
+        int head = 0, tail = 0;
+        for (int i = 0; i < n; i++) {
+            b.setState(states[i]);
+            if (b.isGoal()) {
+                dist[i] = 0;
+                queue[tail++] = i;
+            }
+        }
+        int moves[] = new int[Board.MAX_MOVES];
+        while (head < tail) {
+            int i = queue[head++];
+            b.setState(states[i]);
+            int count = b.genReverseMoves(moves);
+            for (int k = 0; k < count; k++) {
+                b.makeMove(moves[k]);
+                int j = Arrays.binarySearch(states, b.state());
+                if ((dist[j] & 0xff) == UNSOLVABLE) {
+                    dist[j] = (byte) ((dist[i] & 0xff) + 1);
+                    queue[tail++] = j;
+                }
+                b.reverseMove(moves[k]);
+            }
+        }
+        return dist;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public String toString()
+    {
+        return file.getPath();
+    }
+
+    /**
+     * Position of a state in the sorted states, by binary search
+     *
+     * @param state - BitBoard state
+     * @return position of the state in the table, -1 if it is not there
+     */
+    public int index(long state)
+    {
+        int lo = 0, hi = size - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            long key = data.getLong(header + 8 * mid);
+            if (key < state)
+                lo = mid + 1;
+            else if (key > state)
+                hi = mid - 1;
+            else
+                return mid;
+        }
+        return -1;
+    }
+
+    /**
+     * @param state - BitBoard state
+     * @return moves to the goal, UNSOLVABLE if there is no way out or the
+     *         state is not in the table
+     */
+    public int distance(long state)
+    {
+        int i = index(state);
+        if (i < 0)
+            return UNSOLVABLE;
+        return data.get(header + 8 * size + i) & 0xff;
+    }
+}
@@ -0,0 +1,312 @@
+package com.afit.edu;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * Breadth first search that keeps its layers on disk, for state spaces that
+ * do not fit in the heap. Only one layer is expanded at a time, reading its
+ * file front to back. Its children are gathered in a buffer that starts at
+ * FIRST_RUN states and doubles each time it fills, up to RUN_BYTES, so a
+ * small search never allocates all of it. Once that large, a full buffer is
+ * sorted and written out as a run. The runs are then merged into the next
+ * layer file, and the repeats dropped on the way.
+ * Every slide can be slid back, so a new state can only repeat a state of
+ * the two layers before it, and those are streamed through the same merge.
+ *
+ * Every layer file is kept until the search ends. The path is found
+ * backwards from the goal: a state in layer d always has a neighbour in
+ * layer d-1, found by binary search in that file.
+ */
+class ExternalSearch implements Search
+{
+    static final long RUN_BYTES = 64L << 20;
+    static final int FIRST_RUN = 1024;     // states the run buffer starts with
+
+    private WideBitBoard board;
+    private int words;                     // longs per state
+    private File dir;                      // where the work directory goes
+    private File work;                     // this search's files
+    private List<StateFile> layers = new ArrayList<StateFile>();
+    private long buffer[];                 // children waiting to be written as a run
+    private int runLength;                 // longs in the buffer once grown to RUN_BYTES
+    private int moves[] = new int[Board.MAX_MOVES];
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private int files;                     // files written, to name the next one
+
+    /**
+     * Main constructor
+     *
+     * @param b   - Board
+     * @param dir - directory for the layer files, deleted again at the end
+     */
+    public ExternalSearch(Board b, File dir)
+    {
+        this.board = new WideBitBoard(b);
+        this.words = board.stateWords();
+        this.dir = dir;
+    }
+
+    /**
+     * Uses breadth first search through layer files to find the shortest
+     * move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        if (board.isGoal()) {
+            stats.stop(SearchStats.GOAL, 0);
+            return null;
+        }
+        try {
+            work = Files.createTempDirectory(dir.toPath(), "rh-bfs-").toFile();
+            try {
+                return search();
+            }
+            finally {
+                for (File f : work.listFiles())
+                    f.delete();
+                work.delete();
+            }
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Cannot use the layer files in " + dir, e);
+        }
+    }
+
+    private Move search() throws IOException
+    {
+        long start[] = new long[words];
+        board.state(start, 0);
+        layers.add(StateFile.write(newFile(), start, 1, words));
+        long state[] = new long[words];
+        long visited = 1;
+        runLength = (int) (RUN_BYTES / 8 / words) * words;
+        buffer = new long[Math.min(FIRST_RUN * words, runLength)];
+
+        for (int depth = 0; ; depth++) {
+            StateFile layer = layers.get(depth);
+            List<StateFile> runs = new ArrayList<StateFile>();
+            int count = 0;
+            for (long i = 0; i < layer.size(); i++) {
+                if (budget.exhausted(stats.expanded)) {
+                    // Every layer up to this one was checked for the goal
+                    stats.stop(budget.reason(), depth + 1);
+                    return null;
+                }
+                layer.read(i, state, 0);
+                board.setState(state, 0);
+                stats.expandedAt(depth);
+                int n = board.genMoves(moves);
+                stats.generated += n;
+                for (int k = 0; k < n; k++) {
+                    board.makeMove(moves[k]);
+                    if (board.isGoal()) {
+                        stats.stop(SearchStats.GOAL, depth + 1);
+                        stats.visited(visited, 0);
+                        return path(state, moves[k], depth);
+                    }
+                    board.state(buffer, count * words);
+                    board.reverseMove(moves[k]);
+                    if (++count * words == buffer.length) {
+                        if (buffer.length < runLength) {
+                            long grown[] = new long[Math.min(buffer.length * 2, runLength)];
+                            System.arraycopy(buffer, 0, grown, 0, buffer.length);
+                            buffer = grown;
+                        }
+                        else {
+                            runs.add(run(count));
+                            count = 0;
+                        }
+                    }
+                }
+            }
+            if (count > 0 || runs.isEmpty())
+                runs.add(run(count));
+            StateFile next = merge(runs, layer, depth > 0 ? layers.get(depth - 1) : null);
+            if (next.size() == 0) {
+                stats.stop(SearchStats.NO_SOLUTION, -1);
+                stats.visited(visited, 0);
+                return null;
+            }
+            layers.add(next);
+            visited += next.size();
+            stats.frontier(next.size());
+        }
+    }
+
+    private File newFile()
+    {
+        return new File(work, "s" + files++);
+    }
+
+    /**
+     * Sorts the buffer and writes it as a run
+     *
+     * @param count - states in the buffer
+     */
+    private StateFile run(int count) throws IOException
+    {
+        int unique = StateFile.sortUnique(buffer, count, words);
+        stats.duplicates += count - unique;
+        return StateFile.write(newFile(), buffer, unique, words);
+    }
+
+    /**
+     * Merges sorted runs into the next layer, leaving out repeats and the
+     * states of the two layers before it
+     *
+     * @param runs     - sorted runs of children, deleted once merged
+     * @param layer    - layer the children came from
+     * @param previous - layer before that, null at the start
+     * @return the next layer
+     */
+    private StateFile merge(List<StateFile> runs, StateFile layer, StateFile previous) throws IOException
+    {
+        // The run with the smallest next state is always at the head
+        PriorityQueue<Cursor> in = new PriorityQueue<Cursor>(Math.max(1, runs.size()));
+        for (StateFile run : runs) {
+            Cursor c = new Cursor(run);
+            if (c.more())
+                in.add(c);
+        }
+        Cursor seen[] = { new Cursor(layer), previous == null ? null : new Cursor(previous) };
+        long last[] = new long[words];
+        boolean any = false;
+
+        File file = newFile();
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            while (!in.isEmpty()) {
+                Cursor min = in.poll();
+                boolean old = any && StateFile.compare(min.head, 0, last, 0, words) == 0;
+                for (Cursor c : seen)
+                    if (!old && c != null && c.skipTo(min.head))
+                        old = true;
+                if (old)
+                    stats.duplicates++;
+                else {
+                    for (int w = 0; w < words; w++)
+                        out.writeLong(min.head[w]);
+                    System.arraycopy(min.head, 0, last, 0, words);
+                    any = true;
+                }
+                min.advance();
+                if (min.more())
+                    in.add(min);
+            }
+        }
+        finally {
+            out.close();
+        }
+        for (StateFile run : runs)
+            run.file().delete();
+        return new StateFile(file, words);
+    }
+
+    /**
+     * Rebuilds the path once the goal is one move from a state
+     *
+     * @param parent - state in layer depth that reaches the goal
+     * @param last   - move from it to the goal
+     * @param depth  - layer of parent
+     * @return Move list in the order the moves are made
+     */
+    private Move path(long parent[], int last, int depth)
+    {
+        Move result = new Move(last, null);
+        long state[] = parent.clone();
+        for (int d = depth; d > 0; d--) {
+            // Layer d has no goal, so a slide back from it to layer d-1 can be slid forward
+            board.setState(state, 0);
+            int n = board.genMoves(moves);
+            int k = 0;
+            for (; k < n; k++) {
+                board.makeMove(moves[k]);
+                board.state(state, 0);
+                board.reverseMove(moves[k]);
+                if (layers.get(d - 1).contains(state, 0))
+                    break;
+            }
+            if (k == n)
+                throw new IllegalStateException("No state in layer " + (d - 1) + " leads to layer " + d);
+            result = new Move(Move.opposite(moves[k]), result);
+        }
+        return result;
+    }
+
+    /**
+     * Reads a state file front to back
+     */
+    private class Cursor implements Comparable<Cursor>
+    {
+        StateFile file;
+        long at;
+        long head[] = new long[words];
+
+        Cursor(StateFile file)
+        {
+            this.file = file;
+            if (file.size() > 0)
+                file.read(0, head, 0);
+        }
+
+        boolean more()
+        {
+            return at < file.size();
+        }
+
+        void advance()
+        {
+            if (++at < file.size())
+                file.read(at, head, 0);
+        }
+
+        int compareTo(long key[], int from)
+        {
+            return StateFile.compare(head, 0, key, from, words);
+        }
+
+        public int compareTo(Cursor c)
+        {
+            return compareTo(c.head, 0);
+        }
+
+        /**
+         * Moves past every state less than key
+         *
+         * @return true if the file holds key
+         */
+        boolean skipTo(long key[])
+        {
+            while (more() && compareTo(key, 0) < 0)
+                advance();
+            return more() && compareTo(key, 0) == 0;
+        }
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
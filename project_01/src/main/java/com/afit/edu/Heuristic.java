@@ -0,0 +1,15 @@
+package com.afit.edu;
+
+/**
+ * Estimate of the number of moves left to the goal, used by the informed
+ * searches. To keep the solutions optimal an estimate must never be more than
+ * the real number of moves.
+ */
+interface Heuristic {
+
+    /**
+     * @param b - BitBoard
+     * @return lower bound on the number of moves from b to the goal
+     */
+    public int estimate(BitBoard b);
+}
@@ -0,0 +1,139 @@
+package com.afit.edu;
+
+import java.util.Arrays;
+
+/**
+ * Iterative deepening A*. Each iteration is a depth first probe that makes
+ * and reverses moves on a single BitBoard, cut off where f = g + h passes the
+ * current bound; the next bound is the smallest f that was cut off. Memory
+ * stays proportional to the solution length, apart from a small fixed size
+ * transposition cache that stops states already probed in this iteration,
+ * with at least as many moves to spare, from being probed again.
+ */
+class IDAStarSearch implements Search
+{
+    private static final int FOUND = -1;
+    private static final int STOPPED = -2;  // the budget ran out
+    private static final int CACHE_BITS = 16;
+
+    private BitBoard board;
+    private Heuristic heuristic;
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private int path[] = new int[64];   // packed moves of the current probe
+    private int moves[][] = new int[64][Board.MAX_MOVES]; // move buffer per depth
+    private int pathLength;
+    private long cacheKeys[] = new long[1 << CACHE_BITS];
+    private int cacheCost[] = new int[1 << CACHE_BITS];
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board
+     * @param h - Heuristic
+     */
+    public IDAStarSearch(Board b, Heuristic h)
+    {
+        this.board = new BitBoard(b);
+        this.heuristic = h;
+    }
+
+    /**
+     * Uses iterative deepening A* to find an optimal move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        int bound = heuristic.estimate(board);
+        while (true) {
+            // Cached costs are only valid against the bound they were probed with
+            Arrays.fill(cacheCost, Integer.MAX_VALUE);
+            if (path.length <= bound) {
+                path = new int[bound * 2];
+                moves = new int[bound * 2][Board.MAX_MOVES];
+            }
+            int t = probe(0, bound);
+            if (t == FOUND) {
+                stats.stop(SearchStats.GOAL, pathLength);
+                Move result = null;
+                for (int i = pathLength - 1; i >= 0; i--)
+                    result = new Move(path[i], result);
+                return result;
+            }
+            if (t == STOPPED) {
+                // Earlier iterations showed there is nothing shorter than bound
+                stats.stop(budget.reason(), bound);
+                return null;
+            }
+            if (t == Integer.MAX_VALUE) {
+                stats.stop(SearchStats.NO_SOLUTION, -1);
+                return null;
+            }
+            bound = t;
+        }
+    }
+
+    /**
+     * Depth first probe below the current board
+     *
+     * @param g     - moves made so far
+     * @param bound - largest f allowed in this iteration
+     * @return FOUND, STOPPED, or the smallest f over the bound below this board
+     */
+    private int probe(int g, int bound)
+    {
+        if (budget.exhausted(stats.expanded))
+            return STOPPED;
+        stats.expandedAt(g);
+        stats.frontier(g + 1);
+        int f = g + heuristic.estimate(board);
+        if (f > bound)
+            return f;
+        if (board.isGoal()) {
+            pathLength = g;
+            return FOUND;
+        }
+
+        long key = board.state();
+        int slot = LongHashSet.hash(key) & (cacheKeys.length - 1);
+        if (cacheKeys[slot] == key && cacheCost[slot] <= g) {
+            stats.duplicates++;
+            return Integer.MAX_VALUE;
+        }
+        cacheKeys[slot] = key;
+        cacheCost[slot] = g;
+
+        int min = Integer.MAX_VALUE;
+        int moves[] = this.moves[g];
+        int n = board.genMoves(moves);
+        stats.generated += n;
+        for (int k = 0; k < n; k++) {
+            board.makeMove(moves[k]);
+            path[g] = moves[k];
+            int t = probe(g + 1, bound);
+            board.reverseMove(moves[k]);
+            if (t == FOUND || t == STOPPED)
+                return t;
+            if (t < min)
+                min = t;
+        }
+        return min;
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
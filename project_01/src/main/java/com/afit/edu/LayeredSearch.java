@@ -0,0 +1,234 @@
+package com.afit.edu;
+
+import java.util.Arrays;
+
+/**
+ * Breadth first search that keeps no visited set. Every slide can be slid
+ * back, so a neighbour of a state at depth d is at depth d-1, d or d+1, and
+ * the previous, current and next layers are all that is needed to tell a new
+ * state from one already seen. Each layer is a sorted long[] of states, so
+ * peak memory follows the widest layer rather than every state reached.
+ *
+ * Without parent links the path is found by divide and conquer: the states
+ * halfway between two ends are the ones at half the distance from the first
+ * and the rest of it back from the second, so a midpoint is where the two
+ * layers meet, and each half is solved the same way down to single moves.
+ */
+class LayeredSearch implements Search
+{
+    private static final long STOPPED[] = new long[0]; // the budget ran out
+
+    private BitBoard board;
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private int moves[] = new int[Board.MAX_MOVES];  // reused move buffer
+    private long next[] = new long[1024];            // children of a layer, unsorted
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board
+     */
+    public LayeredSearch(Board b)
+    {
+        this.board = new BitBoard(b);
+    }
+
+    /**
+     * Uses layer by layer breadth first search to find the shortest move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        long start = board.state();
+        long previous[] = new long[0];
+        long layer[] = { start };
+        int depth = 0;
+        long goal = 0;
+        boolean found = false;
+        while (layer.length > 0) {
+            for (int i = 0; i < layer.length && !found; i++) {
+                board.setState(layer[i]);
+                if (board.isGoal()) {
+                    goal = layer[i];
+                    found = true;
+                }
+            }
+            if (found)
+                break;
+            long deeper[] = expand(previous, layer, depth, true);
+            if (deeper == STOPPED) {
+                // Every layer up to this one was checked for the goal
+                stats.stop(budget.reason(), depth + 1);
+                return null;
+            }
+            previous = layer;
+            layer = deeper;
+            depth++;
+        }
+        if (!found) {
+            stats.stop(SearchStats.NO_SOLUTION, -1);
+            return null;
+        }
+        // The layers are gone, only the two ends and the distance are known
+        previous = layer = null;
+        int path[] = new int[depth];
+        if (!connect(start, goal, depth, path, 0)) {
+            stats.stop(budget.reason(), depth);
+            return null;
+        }
+        stats.stop(SearchStats.GOAL, depth);
+        Move result = null;
+        for (int i = depth - 1; i >= 0; i--)
+            result = new Move(path[i], result);
+        return result;
+    }
+
+    /**
+     * Finds the moves of a shortest path between two states
+     *
+     * @param from     - first state
+     * @param to       - last state
+     * @param distance - moves between them
+     * @param path     - where the moves go
+     * @param at       - index in path of the first move
+     * @return false if the budget ran out
+     */
+    private boolean connect(long from, long to, int distance, int path[], int at)
+    {
+        if (distance == 0)
+            return true;
+        if (distance == 1) {
+            board.setState(from);
+            int n = board.genMoves(moves);
+            for (int k = 0; k < n; k++) {
+                board.makeMove(moves[k]);
+                boolean hit = board.state() == to;
+                board.reverseMove(moves[k]);
+                if (hit) {
+                    path[at] = moves[k];
+                    return true;
+                }
+            }
+            throw new IllegalStateException("No move joins two states one move apart");
+        }
+        int half = distance / 2;
+        long ahead[] = layer(from, half, true);
+        if (ahead == STOPPED)
+            return false;
+        long behind[] = layer(to, distance - half, false);
+        if (behind == STOPPED)
+            return false;
+        long middle = meet(ahead, behind);
+        ahead = behind = null;
+        return connect(from, middle, half, path, at) &&
+               connect(middle, to, distance - half, path, at + half);
+    }
+
+    /**
+     * @return a state in both sorted arrays
+     */
+    private static long meet(long a[], long b[])
+    {
+        int i = 0, j = 0;
+        while (i < a.length && j < b.length) {
+            if (a[i] < b[j])
+                i++;
+            else if (a[i] > b[j])
+                j++;
+            else
+                return a[i];
+        }
+        throw new IllegalStateException("The halves of a shortest path do not meet");
+    }
+
+    /**
+     * The states a given number of moves from a state
+     *
+     * @param from    - state to start at
+     * @param depth   - moves from it
+     * @param forward - follow genMoves(), or genReverseMoves() to find the
+     *                  states depth moves before it
+     * @return sorted states, or STOPPED if the budget ran out
+     */
+    private long[] layer(long from, int depth, boolean forward)
+    {
+        long previous[] = new long[0];
+        long layer[] = { from };
+        for (int d = 0; d < depth; d++) {
+            long deeper[] = expand(previous, layer, -1, forward);
+            if (deeper == STOPPED)
+                return STOPPED;
+            previous = layer;
+            layer = deeper;
+        }
+        return layer;
+    }
+
+    /**
+     * Builds the layer after the current one
+     *
+     * @param previous - sorted layer before the current one
+     * @param layer    - sorted current layer
+     * @param depth    - depth of the current layer from the start board, for
+     *                   the statistics, -1 while rebuilding the path
+     * @param forward  - follow genMoves() or genReverseMoves()
+     * @return sorted states of the next layer, or STOPPED if the budget ran out
+     */
+    private long[] expand(long previous[], long layer[], int depth, boolean forward)
+    {
+        int size = 0;
+        for (int i = 0; i < layer.length; i++) {
+            if (budget.exhausted(stats.expanded))
+                return STOPPED;
+            board.setState(layer[i]);
+            if (depth >= 0)
+                stats.expandedAt(depth);
+            else
+                stats.expanded++;
+            int n = forward ? board.genMoves(moves) : board.genReverseMoves(moves);
+            stats.generated += n;
+            for (int k = 0; k < n; k++) {
+                board.makeMove(moves[k]);
+                long key = board.state();
+                board.reverseMove(moves[k]);
+                if (Arrays.binarySearch(previous, key) >= 0 || Arrays.binarySearch(layer, key) >= 0) {
+                    stats.duplicates++;
+                    continue;
+                }
+                if (size == next.length)
+                    next = Arrays.copyOf(next, size * 2);
+                next[size++] = key;
+            }
+        }
+        // Children reached from more than one state of the layer
+        Arrays.sort(next, 0, size);
+        int unique = 0;
+        for (int i = 0; i < size; i++)
+            if (unique == 0 || next[i] != next[unique - 1])
+                next[unique++] = next[i];
+        stats.duplicates += size - unique;
+        stats.frontier(unique);
+        // The three layers are the only states held
+        if (previous.length + layer.length + unique > stats.visited)
+            stats.visited(previous.length + layer.length + unique, 0);
+        return Arrays.copyOf(next, unique);
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
@@ -0,0 +1,120 @@
+package com.afit.edu;
+
+/**
+ * Set of primitive longs for the visited list. Keys live in one open
+ * addressing table with linear probing, so there is no boxing and no entry
+ * object per state. The table doubles once it is half full.
+ */
+class LongHashSet
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private long keys[];
+    private int mask;          // capacity - 1, capacity is a power of two
+    private int size;
+    private boolean hasZero;   // 0 marks an empty slot, so it is kept aside
+
+    public LongHashSet()
+    {
+        this(1024);
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param expected - number of keys to size the table for
+     */
+    public LongHashSet(int expected)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2)
+            capacity <<= 1;
+        keys = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Spreads the bits of a key over the table index
+     *
+     * @param key - long
+     * @return slot for the key before probing
+     */
+    static int hash(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return (int) key;
+    }
+
+    /**
+     * Adds a key to the set
+     *
+     * @param key - long
+     * @return true if the key was not in the set yet
+     */
+    public boolean add(long key)
+    {
+        if (key == 0) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key)
+                return false;
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        if (++size * 2 > keys.length)
+            grow();
+        return true;
+    }
+
+    /**
+     * @param key - long
+     * @return true if the key is in the set
+     */
+    public boolean contains(long key)
+    {
+        if (key == 0)
+            return hasZero;
+        int i = hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key)
+                return true;
+            i = (i + 1) & mask;
+        }
+        return false;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    private void grow()
+    {
+        long old[] = keys;
+        keys = new long[old.length * 2];
+        mask = keys.length - 1;
+        for (long key : old) {
+            if (key == 0)
+                continue;
+            int i = hash(key) & mask;
+            while (keys[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = key;
+        }
+    }
+}
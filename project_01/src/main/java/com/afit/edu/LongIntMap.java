@@ -0,0 +1,111 @@
+package com.afit.edu;
+
+/**
+ * Map from primitive long keys to int values, laid out like LongHashSet: one
+ * open addressing table with linear probing that doubles when half full.
+ */
+class LongIntMap
+{
+    private static final int MIN_CAPACITY = 16;
+
+    private long keys[];
+    private int values[];
+    private int mask;
+    private int size;
+    private boolean hasZero;   // 0 marks an empty slot, so it is kept aside
+    private int zeroValue;
+
+    public LongIntMap()
+    {
+        this(1024);
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param expected - number of keys to size the table for
+     */
+    public LongIntMap(int expected)
+    {
+        int capacity = MIN_CAPACITY;
+        while (capacity < expected * 2)
+            capacity <<= 1;
+        keys = new long[capacity];
+        values = new int[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * @param key - long
+     * @return value stored for the key, -1 if there is none
+     */
+    public int get(long key)
+    {
+        if (key == 0)
+            return hasZero ? zeroValue : -1;
+        int i = LongHashSet.hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key)
+                return values[i];
+            i = (i + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Stores a value for a key, replacing any earlier one
+     *
+     * @param key   - long
+     * @param value - int
+     */
+    public void put(long key, int value)
+    {
+        if (key == 0) {
+            if (!hasZero)
+                size++;
+            hasZero = true;
+            zeroValue = value;
+            return;
+        }
+        int i = LongHashSet.hash(key) & mask;
+        while (keys[i] != 0) {
+            if (keys[i] == key) {
+                values[i] = value;
+                return;
+            }
+            i = (i + 1) & mask;
+        }
+        keys[i] = key;
+        values[i] = value;
+        if (++size * 2 > keys.length)
+            grow();
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    public int capacity()
+    {
+        return keys.length;
+    }
+
+    private void grow()
+    {
+        long oldKeys[] = keys;
+        int oldValues[] = values;
+        keys = new long[oldKeys.length * 2];
+        values = new int[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int j = 0; j < oldKeys.length; j++) {
+            if (oldKeys[j] == 0)
+                continue;
+            int i = LongHashSet.hash(oldKeys[j]) & mask;
+            while (keys[i] != 0)
+                i = (i + 1) & mask;
+            keys[i] = oldKeys[j];
+            values[i] = oldValues[j];
+        }
+    }
+}
@@ -0,0 +1,86 @@
+package com.afit.edu;
+
+/**
+ * Binary min heap of primitive longs, used as the open list of the informed
+ * searches. Callers pack the priority into the high bits of each entry and
+ * the node id into the low bits.
+ */
+class LongMinHeap
+{
+    private long heap[];
+    private int size;
+
+    public LongMinHeap()
+    {
+        this(1024);
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param capacity - initial number of entries
+     */
+    public LongMinHeap(int capacity)
+    {
+        heap = new long[Math.max(capacity, 2)];
+    }
+
+    public void push(long entry)
+    {
+        if (size == heap.length) {
+            long grown[] = new long[size * 2];
+            System.arraycopy(heap, 0, grown, 0, size);
+            heap = grown;
+        }
+        // Sift up
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 1;
+            if (heap[parent] <= entry)
+                break;
+            heap[i] = heap[parent];
+            i = parent;
+        }
+        heap[i] = entry;
+    }
+
+    /**
+     * Removes the smallest entry. Only call when the heap is not empty.
+     *
+     * @return smallest entry
+     */
+    public long poll()
+    {
+        long result = heap[0];
+        long last = heap[--size];
+        // Sift down
+        int i = 0;
+        int half = size >>> 1;
+        while (i < half) {
+            int child = 2 * i + 1;
+            if (child + 1 < size && heap[child + 1] < heap[child])
+                child++;
+            if (last <= heap[child])
+                break;
+            heap[i] = heap[child];
+            i = child;
+        }
+        heap[i] = last;
+        return result;
+    }
+
+    public long peek()
+    {
+        return heap[0];
+    }
+
+    public boolean isEmpty()
+    {
+        return size == 0;
+    }
+
+    public int size()
+    {
+        return size;
+    }
+}
@@ -37,4 +37,57 @@ public class Move
       spaces = m.spaces;
       next = null; 
     }
+
+    /**
+     * Unpacking constructor
+     *
+     * @param packed  - move packed by pack()
+     * @param pointer - next move in the list
+     */
+    public Move ( int packed, Move pointer ) {
+      this( pieceOf( packed ), directionOf( packed ), spacesOf( packed ), pointer );
+    }
+
+    /**
+     * Packs a move into a single int: piece index, direction and spaces.
+     *
+     * @param index - piece index
+     * @param dir   - direction
+     * @param sp    - spaces
+     * @return int
+     */
+    public static int pack( int index, int dir, int sp ) {
+      return ( index << 16 ) | ( dir << 8 ) | sp;
+    }
+
+    public int pack() {
+      return pack( piece_index, direction, spaces );
+    }
+
+    public static int pieceOf( int packed ) {
+      return packed >>> 16;
+    }
+
+    public static int directionOf( int packed ) {
+      return ( packed >>> 8 ) & 0xff;
+    }
+
+    public static int spacesOf( int packed ) {
+      return packed & 0xff;
+    }
+
+    /**
+     * Gives the packed move that undoes a packed move
+     *
+     * @param packed - move packed by pack()
+     * @return the same slide in the opposite direction
+     */
+    public static int opposite( int packed ) {
+      int dir = directionOf( packed );
+      if ( dir == NORTH ) dir = SOUTH;
+      else if ( dir == SOUTH ) dir = NORTH;
+      else if ( dir == EAST ) dir = WEST;
+      else dir = EAST;
+      return ( packed & ~0xff00 ) | ( dir << 8 );
+    }
 }
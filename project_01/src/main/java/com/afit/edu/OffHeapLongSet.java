@@ -0,0 +1,96 @@
+package com.afit.edu;
+
+/**
+ * LongHashSet with its table in an OffHeapLongs, for visited sets too big to
+ * keep on the heap. Same open addressing with linear probing, doubling once
+ * half full; only the old table is dropped as a single buffer instead of a
+ * long[] the collector has to copy.
+ */
+class OffHeapLongSet
+{
+    private static final long MIN_CAPACITY = 16;
+
+    private OffHeapLongs keys;
+    private long mask;         // capacity - 1, capacity is a power of two
+    private long size;
+    private boolean hasZero;   // 0 marks an empty slot, so it is kept aside
+
+    /**
+     * Main constructor
+     *
+     * @param expected - number of keys to size the table for
+     */
+    public OffHeapLongSet(long expected)
+    {
+        long capacity = MIN_CAPACITY;
+        while (capacity < expected * 2)
+            capacity <<= 1;
+        keys = new OffHeapLongs(capacity);
+        mask = capacity - 1;
+    }
+
+    /**
+     * Slot for a key before probing. Uses 64 bits of the mix, so tables
+     * larger than 2^31 slots still spread.
+     */
+    private static long slot(long key)
+    {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+
+    /**
+     * Adds a key to the set
+     *
+     * @param key - long
+     * @return true if the key was not in the set yet
+     */
+    public boolean add(long key)
+    {
+        if (key == 0) {
+            if (hasZero)
+                return false;
+            hasZero = true;
+            size++;
+            return true;
+        }
+        long i = slot(key) & mask;
+        for (long k; (k = keys.get(i)) != 0; i = (i + 1) & mask)
+            if (k == key)
+                return false;
+        keys.set(i, key);
+        if (++size * 2 > keys.length())
+            grow();
+        return true;
+    }
+
+    public long size()
+    {
+        return size;
+    }
+
+    public long capacity()
+    {
+        return keys.length();
+    }
+
+    private void grow()
+    {
+        OffHeapLongs old = keys;
+        keys = new OffHeapLongs(old.length() * 2);
+        mask = keys.length() - 1;
+        for (long j = 0; j < old.length(); j++) {
+            long key = old.get(j);
+            if (key == 0)
+                continue;
+            long i = slot(key) & mask;
+            while (keys.get(i) != 0)
+                i = (i + 1) & mask;
+            keys.set(i, key);
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.afit.edu;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+
+/**
+ * Fixed length array of longs outside the Java heap, in direct buffers of
+ * CHUNK longs each so it can pass the 2GB a single buffer can hold. The
+ * garbage collector only sees the few buffer objects, never the contents,
+ * however long the array is.
+ */
+class OffHeapLongs
+{
+    static final int CHUNK_BITS = 27;               // 1GB per buffer
+    static final long CHUNK = 1L << CHUNK_BITS;
+
+    private final long length;
+    private final LongBuffer chunks[];
+
+    /**
+     * Main constructor, every element starts at 0
+     *
+     * @param length - number of longs
+     */
+    OffHeapLongs(long length)
+    {
+        this.length = length;
+        chunks = new LongBuffer[(int) ((length + CHUNK - 1) >>> CHUNK_BITS)];
+        for (int c = 0; c < chunks.length; c++) {
+            long longs = Math.min(CHUNK, length - ((long) c << CHUNK_BITS));
+            chunks[c] = ByteBuffer.allocateDirect((int) (longs * 8)).order(ByteOrder.nativeOrder()).asLongBuffer();
+        }
+    }
+
+    long get(long i)
+    {
+        return chunks[(int) (i >>> CHUNK_BITS)].get((int) (i & (CHUNK - 1)));
+    }
+
+    void set(long i, long value)
+    {
+        chunks[(int) (i >>> CHUNK_BITS)].put((int) (i & (CHUNK - 1)), value);
+    }
+
+    long length()
+    {
+        return length;
+    }
+}
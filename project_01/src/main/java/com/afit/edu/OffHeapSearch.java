@@ -0,0 +1,155 @@
+package com.afit.edu;
+
+/**
+ * Breadth first search whose per node storage is all off the Java heap, so
+ * heap use stays flat and there is nothing for the collector to copy however
+ * many nodes the search holds. Nodes are found in the same order as BrdSearch
+ * finds them, and each one is only its BitBoard state:
+ *
+ * the visited set is an OffHeapLongSet of states; the queue is a ring buffer
+ * of states in an OffHeapLongs, which doubles when it is full; and the parent
+ * and packed move of every node are one long per node id in a second
+ * OffHeapLongs, which plays the part of SearchTree. Nodes are queued in the
+ * order of their ids, so the id of the node at the front of the queue is
+ * just the number of nodes taken off it.
+ *
+ * The buffers count against -XX:MaxDirectMemorySize, not -Xmx, and the
+ * heap limit of a SearchBudget does not see them. The direct memory limit
+ * defaults to the heap size, so a large search raises it instead of -Xmx.
+ */
+class OffHeapSearch implements Search
+{
+    private static final int INITIAL = 1 << 16;
+
+    private BitBoard board;
+    private OffHeapLongSet visited = new OffHeapLongSet(INITIAL);
+    private OffHeapLongs queue = new OffHeapLongs(INITIAL);
+    private long queueHead, queueTail;     // count of states taken off and put on the queue
+    private OffHeapLongs tree = new OffHeapLongs(INITIAL); // parent << 32 | move, by node id
+    private int size;                      // nodes in the tree
+    private int moves[] = new int[Board.MAX_MOVES];
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board
+     */
+    public OffHeapSearch(Board b)
+    {
+        this.board = new BitBoard(b);
+        visited.add(board.state());
+        offer(board.state());
+        add(-1, 0);
+    }
+
+    /**
+     * Uses breadth first search to find the shortest move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        int depth = -1;     // depth of the node at the front of the queue
+        int layerEnd = 0;   // id of the first node one layer deeper
+        while (queueHead < queueTail) {
+            // Nodes enter the queue in the order they get their ids
+            int v = (int) queueHead;
+            if (v == layerEnd) {
+                depth++;
+                layerEnd = size;
+            }
+            if (budget.exhausted(stats.expanded)) {
+                // Every node shallower than v has been checked for the goal
+                stats.stop(budget.reason(), depth);
+                stats.visited(visited.size(), visited.capacity());
+                return null;
+            }
+            board.setState(poll());
+            stats.expandedAt(depth);
+            if (board.isGoal()) {
+                stats.stop(SearchStats.GOAL, depth);
+                stats.visited(visited.size(), visited.capacity());
+                return path(v);
+            }
+            int n = board.genMoves(moves);
+            stats.generated += n;
+            for (int k = 0; k < n; k++) {
+                board.makeMove(moves[k]);
+                long key = board.state();
+                board.reverseMove(moves[k]);
+                if (visited.add(key)) {
+                    add(v, moves[k]);
+                    offer(key);
+                }
+                else
+                    stats.duplicates++;
+            }
+            stats.frontier(queueTail - queueHead);
+        }
+        stats.stop(SearchStats.NO_SOLUTION, -1);
+        stats.visited(visited.size(), visited.capacity());
+        return null;
+    }
+
+    /**
+     * Adds a node to the tree
+     *
+     * @param parent - id of the parent node, -1 for the root
+     * @param move   - move from the parent packed by Move.pack()
+     */
+    private void add(int parent, int move)
+    {
+        if (size == tree.length()) {
+            OffHeapLongs grown = new OffHeapLongs(tree.length() * 2);
+            for (long i = 0; i < size; i++)
+                grown.set(i, tree.get(i));
+            tree = grown;
+        }
+        tree.set(size++, (long) parent << 32 | (move & 0xffffffffL));
+    }
+
+    private Move path(int id)
+    {
+        Move result = null;
+        for (long node; (int) ((node = tree.get(id)) >> 32) >= 0; id = (int) (node >> 32))
+            result = new Move((int) node, result);
+        return result;
+    }
+
+    private void offer(long state)
+    {
+        long capacity = queue.length();
+        if (queueTail - queueHead == capacity) {
+            // Unwrap into a ring twice the size, front of the queue first
+            OffHeapLongs grown = new OffHeapLongs(capacity * 2);
+            for (long i = queueHead; i < queueTail; i++)
+                grown.set(i & (capacity * 2 - 1), queue.get(i & (capacity - 1)));
+            queue = grown;
+            capacity *= 2;
+        }
+        queue.set(queueTail++ & (capacity - 1), state);
+    }
+
+    private long poll()
+    {
+        return queue.get(queueHead++ & (queue.length() - 1));
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
@@ -0,0 +1,205 @@
+package com.afit.edu;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Level synchronous breadth first search spread over a ForkJoinPool. Each
+ * layer is cut into chunks of consecutive nodes that are expanded in
+ * parallel; children are claimed in a StripedLongMap under their rank, the
+ * parent id times MAX_MOVES plus the position of the move in the parent's
+ * move list. A state keeps the smallest rank offered for it, which is the
+ * one a sequential search would have found first, and earlier layers always
+ * hold smaller ranks. The next layer is merged chunk by chunk in rank order,
+ * so the nodes, and the solution, are the same as BrdSearch gives on every
+ * run and for any number of threads.
+ */
+class ParallelBrdSearch implements Search
+{
+    private static final int MAX_MOVES = Board.MAX_MOVES;
+    private static final int GRAIN = 256;       // fewest nodes worth a chunk
+
+    private BitBoard board;
+    private int threads;
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+    private StateTree tree = new StateTree();
+    private StripedLongMap discoBoards = new StripedLongMap(); // state -> rank
+
+    /**
+     * Main constructor
+     *
+     * @param b       - Board
+     * @param threads - number of worker threads
+     */
+    public ParallelBrdSearch(Board b, int threads)
+    {
+        this.board = new BitBoard(b);
+        this.threads = threads;
+        tree.add(board.state(), -1, 0);
+        discoBoards.putMin(board.state(), -1);
+    }
+
+    /**
+     * Expands the nodes from lo to hi and keeps the children it claimed
+     */
+    private class Chunk extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        int lo, hi;
+        long states[] = new long[64];     // children this chunk claimed
+        long ranks[] = new long[64];
+        int parents[] = new int[64];
+        int childMoves[] = new int[64];
+        int size;
+        long generated;
+
+        Chunk(int lo, int hi)
+        {
+            this.lo = lo;
+            this.hi = hi;
+        }
+
+        protected void compute()
+        {
+            BitBoard b = new BitBoard(board);
+            int moves[] = new int[Board.MAX_MOVES];
+            for (int v = lo; v < hi; v++) {
+                b.setState(tree.state(v));
+                int n = b.genMoves(moves);
+                generated += n;
+                for (int k = 0; k < n; k++) {
+                    b.makeMove(moves[k]);
+                    long key = b.state();
+                    long rank = (long) v * MAX_MOVES + k;
+                    if (discoBoards.putMin(key, rank) == rank)
+                        add(key, rank, v, moves[k]);
+                    b.reverseMove(moves[k]);
+                }
+            }
+        }
+
+        private void add(long state, long rank, int parent, int move)
+        {
+            if (size == states.length) {
+                long grownStates[] = new long[size * 2];
+                System.arraycopy(states, 0, grownStates, 0, size);
+                states = grownStates;
+                long grownRanks[] = new long[size * 2];
+                System.arraycopy(ranks, 0, grownRanks, 0, size);
+                ranks = grownRanks;
+                int grown[] = new int[size * 2];
+                System.arraycopy(parents, 0, grown, 0, size);
+                parents = grown;
+                grown = new int[size * 2];
+                System.arraycopy(childMoves, 0, grown, 0, size);
+                childMoves = grown;
+            }
+            states[size] = state;
+            ranks[size] = rank;
+            parents[size] = parent;
+            childMoves[size] = move;
+            size++;
+        }
+    }
+
+    /**
+     * Expands every chunk of a layer
+     */
+    private static class Layer extends RecursiveAction
+    {
+        private static final long serialVersionUID = 1L;
+
+        Chunk chunks[];
+
+        Layer(Chunk chunks[])
+        {
+            this.chunks = chunks;
+        }
+
+        protected void compute()
+        {
+            invokeAll(chunks);
+        }
+    }
+
+    /**
+     * Uses parallel breadth first search to find the shortest move list
+     *
+     * @return Move for goal Board
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        if (board.isGoal()) {
+            stats.stop(SearchStats.GOAL, 0);
+            return null;
+        }
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        try {
+            int layerStart = 0, layerEnd = 1, depth = 0;
+            while (layerStart < layerEnd) {
+                if (budget.exhaustedNow(stats.expanded)) {
+                    // The nodes of every finished layer were checked for the goal
+                    stats.stop(budget.reason(), depth + 1);
+                    return null;
+                }
+                int n = layerEnd - layerStart;
+                int pieces = Math.max(1, Math.min(n / GRAIN, threads * 4));
+                Chunk chunks[] = new Chunk[pieces];
+                for (int c = 0; c < pieces; c++)
+                    chunks[c] = new Chunk(layerStart + (int) ((long) n * c / pieces),
+                                          layerStart + (int) ((long) n * (c + 1) / pieces));
+                pool.invoke(new Layer(chunks));
+                stats.expandedAt(depth++, n);
+                stats.frontier(n);
+
+                // Keep the children whose claim was not beaten by a smaller rank
+                int goal = -1;
+                for (Chunk chunk : chunks) {
+                    stats.generated += chunk.generated;
+                    for (int i = 0; i < chunk.size; i++) {
+                        if (discoBoards.get(chunk.states[i]) != chunk.ranks[i])
+                            continue;
+                        int w = tree.add(chunk.states[i], chunk.parents[i], chunk.childMoves[i]);
+                        if (goal < 0) {
+                            board.setState(chunk.states[i]);
+                            if (board.isGoal())
+                                goal = w;
+                        }
+                    }
+                }
+                // Every child that did not become a node was a duplicate
+                stats.duplicates = stats.generated - (tree.size() - 1);
+                stats.visited(discoBoards.size(), discoBoards.capacity());
+                if (goal >= 0) {
+                    stats.stop(SearchStats.GOAL, depth);
+                    return tree.path(goal);
+                }
+                layerStart = layerEnd;
+                layerEnd = tree.size();
+            }
+            stats.stop(SearchStats.NO_SOLUTION, -1);
+            return null;
+        }
+        finally {
+            pool.shutdown();
+        }
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
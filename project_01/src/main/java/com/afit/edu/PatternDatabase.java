@@ -0,0 +1,168 @@
+package com.afit.edu;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Exact number of moves to the goal for every state of a pattern: a board
+ * cut down to X0 and some of the other pieces. Leaving pieces out only frees
+ * squares, so every move of the full board is still a move of the pattern and
+ * its distances never overestimate the real ones.
+ *
+ * The pattern is solved completely, backwards from its goal states like a
+ * DistanceTable, and the distances are stored one byte per state in a mixed
+ * radix array: each lane coordinate of each piece is one digit, so a state's
+ * index is computed from the piece positions with no lookup structure at all.
+ *
+ * Databases are kept in memory by layout, so the boards of a batch
+ * that share a pattern build it once. At most cacheSize of them are kept,
+ * the least recently used one dropped first, as each can take MAX_ENTRIES
+ * bytes and a batch of generated puzzles has a different layout per board.
+ */
+class PatternDatabase
+{
+    static final int MAX_ENTRIES = 1 << 22;
+
+    private static int cacheSize = 16;  // most databases kept, 64MB at most
+
+    // Databases built so far, by pattern layout, least recently used first
+    private static final Map<String, PatternDatabase> databases =
+            new LinkedHashMap<String, PatternDatabase>(16, 0.75f, true) {
+                protected boolean removeEldestEntry(Map.Entry<String, PatternDatabase> eldest) {
+                    return size() > cacheSize;
+                }
+            };
+
+    private final byte dist[];
+    final int states;             // states of the pattern, the rest of dist is unused
+
+    private PatternDatabase(byte dist[], int states)
+    {
+        this.dist = dist;
+        this.states = states;
+    }
+
+    /**
+     * Finds or builds the database of a pattern
+     *
+     * @param pattern - BitBoard holding only the pieces of the pattern
+     * @return PatternDatabase
+     */
+    static PatternDatabase forPattern(BitBoard pattern)
+    {
+        String key = Arrays.toString(DistanceTable.layout(pattern));
+        PatternDatabase db;
+        synchronized (databases) {
+            db = databases.get(key);
+        }
+        if (db == null) {
+            // Built outside the lock, so two threads may both build it; the
+            // first one stored is kept
+            db = build(pattern);
+            synchronized (databases) {
+                PatternDatabase other = databases.get(key);
+                if (other != null)
+                    db = other;
+                else
+                    databases.put(key, db);
+            }
+        }
+        return db;
+    }
+
+    /**
+     * Sets how many databases are kept in memory
+     *
+     * @param size - most databases kept, 0 to keep none
+     */
+    static void setCacheSize(int size)
+    {
+        synchronized (databases) {
+            cacheSize = size;
+            // The map only trims on a put, so drop the extra ones now
+            while (databases.size() > size)
+                databases.remove(databases.keySet().iterator().next());
+        }
+    }
+
+    /**
+     * Number of entries the array of a pattern needs: the product of the
+     * radix of every lane coordinate
+     *
+     * @param pattern - BitBoard holding only the pieces of the pattern
+     * @return entries, or more than MAX_ENTRIES if it would not fit
+     */
+    static long entries(BitBoard pattern)
+    {
+        long n = 1;
+        for (int i = 0; i < pattern.piece_count && n <= MAX_ENTRIES; i++) {
+            if (pattern.x_slot[i] >= 0)
+                n *= radixX(pattern, i);
+            if (pattern.y_slot[i] >= 0)
+                n *= radixY(pattern, i);
+        }
+        return n;
+    }
+
+    /**
+     * Places an x coordinate can take: X0 can also stand in the exit column
+     */
+    static int radixX(BitBoard b, int i)
+    {
+        return Board.BOARD_SIZE - b.dx[i] + 1 + (i == b.goal_piece ? 1 : 0);
+    }
+
+    static int radixY(BitBoard b, int i)
+    {
+        return Board.BOARD_SIZE - b.dy[i] + 1;
+    }
+
+    /**
+     * Index of the pattern's current state, lane coordinates taken as digits
+     * in piece order with the first piece the most significant
+     *
+     * @param b - BitBoard holding only the pieces of the pattern
+     * @return index into the distance array
+     */
+    static int index(BitBoard b)
+    {
+        int index = 0;
+        for (int i = 0; i < b.piece_count; i++) {
+            if (b.x_slot[i] >= 0)
+                index = index * radixX(b, i) + b.getX(i);
+            if (b.y_slot[i] >= 0)
+                index = index * radixY(b, i) + b.getY(i);
+        }
+        return index;
+    }
+
+    private static PatternDatabase build(BitBoard pattern)
+    {
+        long states[] = pattern.enumerate(false, MAX_ENTRIES);
+        Arrays.sort(states);
+        byte d[] = DistanceTable.distances(pattern, states);
+        // Entries no real board can map to, where pieces overlap, stay at 0
+        byte dist[] = new byte[(int) entries(pattern)];
+        BitBoard b = new BitBoard(pattern);
+        for (int k = 0; k < states.length; k++) {
+            b.setState(states[k]);
+            dist[index(b)] = d[k];
+        }
+        return new PatternDatabase(dist, states.length);
+    }
+
+    /**
+     * @param index - index() of a pattern state
+     * @return moves from it to the goal, DistanceTable.UNSOLVABLE if it has none
+     */
+    int distance(int index)
+    {
+        return dist[index] & 0xff;
+    }
+
+    int size()
+    {
+        return dist.length;
+    }
+}
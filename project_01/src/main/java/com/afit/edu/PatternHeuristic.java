@@ -0,0 +1,122 @@
+package com.afit.edu;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Looks the estimate up in the PatternDatabase of X0 and the vehicles that
+ * can stand on the exit row: the others in that row first, then the vertical
+ * ones from the exit side westwards. Those alone are an easy puzzle, as the
+ * rows the vertical vehicles escape into are empty, so whatever room is left
+ * in MAX_ENTRIES goes to the horizontal vehicles of the rows nearest the exit
+ * row. The rest of the board is left out of the pattern.
+ *
+ * The choice only depends on the layout, so boards with the same pieces in
+ * the same lanes share one database. The estimate is never less than that
+ * of BlockersOfBlockersHeuristic, which is taken when it is higher.
+ */
+class PatternHeuristic extends BlockersOfBlockersHeuristic
+{
+    private PatternDatabase db;
+    private int piece[];          // board piece of each digit of the index
+    private boolean isX[];        // digit is the piece's x, not its y
+    private int radix[];
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board to be solved
+     */
+    public PatternHeuristic(Board b)
+    {
+        List<Integer> kept = pattern(b);
+        Board a = new Board(b.board_size);
+        for (int i : kept) {
+            Piece p = new Piece(b.piece_list[i]);
+            for (int x = 0; x < p.dx; x++)
+                for (int y = 0; y < p.dy; y++)
+                    a.theBoard[p.x + x][p.y + y] = a.piece_count;
+            a.piece_list[a.piece_count++] = p;
+        }
+        a.rehash();
+        BitBoard pattern = new BitBoard(a);
+        db = PatternDatabase.forPattern(pattern);
+
+        // Digits in the order PatternDatabase.index() takes them
+        List<int[]> digits = new ArrayList<int[]>();
+        for (int j = 0; j < pattern.piece_count; j++) {
+            if (pattern.x_slot[j] >= 0)
+                digits.add(new int[] { kept.get(j), 1, PatternDatabase.radixX(pattern, j) });
+            if (pattern.y_slot[j] >= 0)
+                digits.add(new int[] { kept.get(j), 0, PatternDatabase.radixY(pattern, j) });
+        }
+        piece = new int[digits.size()];
+        isX = new boolean[digits.size()];
+        radix = new int[digits.size()];
+        for (int d = 0; d < piece.length; d++) {
+            piece[d] = digits.get(d)[0];
+            isX[d] = digits.get(d)[1] == 1;
+            radix[d] = digits.get(d)[2];
+        }
+    }
+
+    /**
+     * Picks the pieces of the pattern
+     *
+     * @param b - Board
+     * @return piece indices, X0 first
+     */
+    static List<Integer> pattern(Board b)
+    {
+        int x0 = b.findPiece("X0");
+        List<Integer> candidates = new ArrayList<Integer>();
+        for (int i = 0; i < b.piece_count; i++) {
+            Piece p = b.piece_list[i];
+            if (i != x0 && p.move_direction == Piece.EAST_WEST &&
+                    p.y <= Board.BOARD_EXIT_Y && Board.BOARD_EXIT_Y < p.y + p.dy)
+                candidates.add(i);
+        }
+        // Vertical lanes nearest the exit first; Safari pieces that move both ways last
+        for (int x = Board.BOARD_INDEX; x >= 0; x--)
+            for (int i = 0; i < b.piece_count; i++)
+                if (b.piece_list[i].move_direction == Piece.NORTH_SOUTH && b.piece_list[i].x == x)
+                    candidates.add(i);
+        for (int i = 0; i < b.piece_count; i++)
+            if (b.piece_list[i].move_direction == Piece.NSEW)
+                candidates.add(i);
+        // Then the rows the vertical ones have to clear, nearest first
+        for (int dy = 1; dy < Board.BOARD_SIZE; dy++)
+            for (int i = 0; i < b.piece_count; i++) {
+                Piece p = b.piece_list[i];
+                if (i != x0 && p.move_direction == Piece.EAST_WEST && Math.abs(p.y - Board.BOARD_EXIT_Y) == dy)
+                    candidates.add(i);
+            }
+
+        List<Integer> kept = new ArrayList<Integer>();
+        kept.add(x0);
+        long entries = Board.BOARD_SIZE - b.piece_list[x0].dx + 2;
+        for (int i : candidates) {
+            Piece p = b.piece_list[i];
+            long n = entries;
+            if (p.move_direction != Piece.NORTH_SOUTH)
+                n *= Board.BOARD_SIZE - p.dx + 1;
+            if (p.move_direction != Piece.EAST_WEST)
+                n *= Board.BOARD_SIZE - p.dy + 1;
+            if (n <= PatternDatabase.MAX_ENTRIES) {
+                kept.add(i);
+                entries = n;
+            }
+        }
+        return kept;
+    }
+
+    public int estimate(BitBoard b)
+    {
+        if (b.isGoal())
+            return 0;
+        int index = 0;
+        for (int d = 0; d < piece.length; d++)
+            index = index * radix[d] + (isX[d] ? b.getX(piece[d]) : b.getY(piece[d]));
+        return Math.max(db.distance(index), super.estimate(b));
+    }
+}
@@ -0,0 +1,244 @@
+package com.afit.edu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Generates hard puzzles. Each random layout of vehicles on the standard
+ * board is solved whole, backwards from all of its goal states, the same way
+ * a DistanceTable is built; the states furthest from the goal are the hardest
+ * puzzles that layout has. The layouts are solved in parallel and the hardest
+ * boards found are written in the format RushHour reads.
+ *
+ * command line: [-layouts n] [-threads n] [-seed n] [-pieces min max]
+ *               [-min-length n] [-keep n] [file]
+ */
+public class PuzzleGenerator
+{
+    private static final String CARS = "ABCDEFGHIJKLMN";
+    private static final String TRUCKS = "OPQR";
+    private static final String EMPTY = "..";
+    private static final int STATE_LIMIT = 1 << 24; // layouts with more states are skipped
+
+    public static void main(String[] args) throws IOException, InterruptedException
+    {
+        int layouts = 1000;
+        int threads = Runtime.getRuntime().availableProcessors();
+        long seed = 523;
+        int minPieces = 10, maxPieces = 14;
+        int minLength = 1;
+        int keep = 100;
+        String fileName = "generated.txt";
+
+        for (int a = 0; a < args.length; a++) {
+            if (args[a].equals("-layouts") && a + 1 < args.length)
+                layouts = Integer.parseInt(args[++a]);
+            else if (args[a].equals("-threads") && a + 1 < args.length)
+                threads = Integer.parseInt(args[++a]);
+            else if (args[a].equals("-seed") && a + 1 < args.length)
+                seed = Long.parseLong(args[++a]);
+            else if (args[a].equals("-pieces") && a + 2 < args.length) {
+                minPieces = Integer.parseInt(args[++a]);
+                maxPieces = Integer.parseInt(args[++a]);
+            }
+            else if (args[a].equals("-min-length") && a + 1 < args.length)
+                minLength = Integer.parseInt(args[++a]);
+            else if (args[a].equals("-keep") && a + 1 < args.length)
+                keep = Integer.parseInt(args[++a]);
+            else
+                fileName = args[a];
+        }
+
+        long startTime = System.currentTimeMillis();
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        List<Future<Puzzle>> futures = new ArrayList<Future<Puzzle>>();
+        for (int i = 0; i < layouts; i++)
+            futures.add(pool.submit(new Layout(seed + i, minPieces, maxPieces)));
+
+        // Keep the hardest board of every layout, once each
+        List<Puzzle> puzzles = new ArrayList<Puzzle>();
+        Set<String> seen = new HashSet<String>();
+        long states = 0;
+        try {
+            for (Future<Puzzle> f : futures) {
+                Puzzle p = f.get();
+                states += p.states;
+                if (p.length >= minLength && seen.add(p.key()))
+                    puzzles.add(p);
+            }
+        }
+        catch (ExecutionException e) {
+            throw new IllegalStateException("Layout failed", e.getCause());
+        }
+        finally {
+            pool.shutdownNow();
+        }
+
+        Collections.sort(puzzles, new Comparator<Puzzle>() {
+            public int compare(Puzzle p, Puzzle q) {
+                return q.length - p.length;
+            }
+        });
+        if (puzzles.size() > keep)
+            puzzles = puzzles.subList(0, keep);
+
+        PuzzleWriter out = new PuzzleWriter(new File(fileName), puzzles.size());
+        try {
+            for (Puzzle p : puzzles)
+                out.write(p.board);
+        }
+        finally {
+            out.close();
+        }
+        System.out.print("Wrote " + puzzles.size() + " boards to " + fileName);
+        if (!puzzles.isEmpty())
+            System.out.print(", " + puzzles.get(0).length + " to " + puzzles.get(puzzles.size() - 1).length +
+                             " moves");
+        System.out.println();
+        System.out.println("Explored " + layouts + " layouts, " + states + " states in " +
+                           ((float) (System.currentTimeMillis() - startTime) / 1000.0) + " seconds on " +
+                           threads + " threads");
+    }
+
+    /**
+     * Hardest board of one layout
+     */
+    private static class Puzzle
+    {
+        String board[][];
+        int length;   // moves to solve it, 0 if the layout has no solvable state
+        long states;  // states in the layout
+
+        String key()
+        {
+            StringBuilder s = new StringBuilder();
+            for (String line[] : board)
+                for (String square : line)
+                    s.append(square);
+            return s.toString();
+        }
+    }
+
+    /**
+     * Builds one random layout and finds its hardest board
+     */
+    private static class Layout implements Callable<Puzzle>
+    {
+        long seed;
+        int minPieces, maxPieces;
+
+        Layout(long seed, int minPieces, int maxPieces)
+        {
+            this.seed = seed;
+            this.minPieces = minPieces;
+            this.maxPieces = maxPieces;
+        }
+
+        public Puzzle call()
+        {
+            Random random = new Random(seed);
+            Board board = new Board();
+            board.importBoard(randomBoard(random));
+            BitBoard layout = new BitBoard(board);
+
+            Puzzle result = new Puzzle();
+            long states[] = layout.enumerate(false, STATE_LIMIT);
+            if (states == null) {
+                result.board = toStrings(layout, board);
+                return result;
+            }
+            Arrays.sort(states);
+            byte dist[] = DistanceTable.distances(layout, states);
+            result.states = states.length;
+
+            // The first of the states furthest from the goal, so the same
+            // seed always gives the same board
+            int best = -1;
+            for (int i = 0; i < states.length; i++) {
+                int d = dist[i] & 0xff;
+                if (d != DistanceTable.UNSOLVABLE && (best < 0 || d > (dist[best] & 0xff)))
+                    best = i;
+            }
+            if (best >= 0) {
+                layout.setState(states[best]);
+                result.length = dist[best] & 0xff;
+            }
+            result.board = toStrings(layout, board);
+            return result;
+        }
+
+        /**
+         * Places X0 on the exit row and then random cars and trucks wherever
+         * they fit. Nothing lies across the exit row, since it could never
+         * leave X0's way.
+         */
+        private String[][] randomBoard(Random random)
+        {
+            String board[][] = new String[Board.BOARD_SIZE][Board.BOARD_SIZE];
+            for (String line[] : board)
+                Arrays.fill(line, EMPTY);
+            int exitLine = Board.BOARD_INDEX - Board.BOARD_EXIT_Y;
+            int x0 = random.nextInt(Board.BOARD_SIZE - 2);
+            board[exitLine][x0] = board[exitLine][x0 + 1] = "X0";
+
+            int pieces = minPieces + random.nextInt(maxPieces - minPieces + 1);
+            int cars = 0, trucks = 0;
+            for (int attempt = 0; cars + trucks < pieces && attempt < 1000; attempt++) {
+                boolean truck = random.nextInt(4) == 0;
+                boolean vertical = random.nextBoolean();
+                int length = truck ? 3 : 2;
+                int line = random.nextInt(Board.BOARD_SIZE - (vertical ? length - 1 : 0));
+                int col = random.nextInt(Board.BOARD_SIZE - (vertical ? 0 : length - 1));
+                if (!vertical && line == exitLine)
+                    continue;
+                boolean free = true;
+                for (int k = 0; k < length; k++)
+                    free &= board[vertical ? line + k : line][vertical ? col : col + k].equals(EMPTY);
+                if (!free)
+                    continue;
+                String name = truck ? TRUCKS.charAt(trucks % TRUCKS.length()) + String.valueOf(1 + trucks / TRUCKS.length())
+                                    : CARS.charAt(cars % CARS.length()) + String.valueOf(1 + cars / CARS.length());
+                if (truck)
+                    trucks++;
+                else
+                    cars++;
+                for (int k = 0; k < length; k++)
+                    board[vertical ? line + k : line][vertical ? col : col + k] = name;
+            }
+            return board;
+        }
+    }
+
+    /**
+     * Lays the pieces of a BitBoard out as PuzzleWriter writes them
+     *
+     * @param b     - BitBoard
+     * @param names - Board the BitBoard was built from, for the piece names
+     * @return String[BOARD_SIZE][BOARD_SIZE]
+     */
+    static String[][] toStrings(BitBoard b, Board names)
+    {
+        String board[][] = new String[Board.BOARD_SIZE][Board.BOARD_SIZE];
+        for (String line[] : board)
+            Arrays.fill(line, EMPTY);
+        for (int i = 0; i < b.piece_count; i++)
+            for (int x = b.getX(i); x < b.getX(i) + b.dx[i]; x++)
+                for (int y = b.getY(i); y < b.getY(i) + b.dy[i]; y++)
+                    if (x < Board.BOARD_SIZE)
+                        board[Board.BOARD_INDEX - y][x] = names.piece_list[i].name;
+        return board;
+    }
+}
@@ -0,0 +1,131 @@
+package com.afit.edu;
+
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Streaming reader for puzzle files: a line with the number of boards, then
+ * each board as lines of two characters per square, as many lines as there
+ * are squares in a line, so the first line of a board gives its size. Blank
+ * lines between boards and Windows or Unix line endings are both accepted.
+ *
+ * The file is read through a FileChannel into one fixed size buffer and the
+ * boards are handed out one at a time, so a file of any size can be solved
+ * without holding more than the current board in memory.
+ */
+class PuzzleReader implements Closeable
+{
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private FileChannel channel;
+    private ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private StringBuilder line = new StringBuilder();
+    private long lineNumber;
+    private long count;   // boards announced in the first line
+    private long read;    // boards handed out so far
+
+    /**
+     * Opens a puzzle file and reads the number of boards
+     *
+     * @param f - File
+     * @throws IOException if the file cannot be read or has no board count
+     */
+    public PuzzleReader(File f) throws IOException
+    {
+        channel = new FileInputStream(f).getChannel();
+        buffer.flip();
+        if (!readLine())
+            throw new EOFException(f.getName() + ": empty puzzle file");
+        try {
+            count = Long.parseLong(line.toString().trim());
+        }
+        catch (NumberFormatException e) {
+            throw new IOException(f.getName() + ": first line is not a board count");
+        }
+    }
+
+    /**
+     * @return number of boards the file says it holds
+     */
+    public long count()
+    {
+        return count;
+    }
+
+    /**
+     * Reads the next board
+     *
+     * @return String[size][size] as taken by Board.importBoard(), or null
+     *         once every board has been read
+     * @throws IOException if a board is cut short or a line has the wrong length
+     */
+    public String[][] next() throws IOException
+    {
+        if (read == count)
+            return null;
+        // Skip the blank lines between boards
+        do {
+            if (!readLine())
+                return null;
+        } while (line.length() == 0);
+
+        int size = line.length() / 2;
+        if (line.length() % 2 != 0 || size < 3 || size > Board.MAX_SIZE)
+            throw new IOException("Line " + lineNumber + ": " + line.length() +
+                                  " characters is not a board from 3x3 to " + Board.MAX_SIZE + "x" + Board.MAX_SIZE);
+        String board[][] = new String[size][size];
+        for (int i = 0; i < size; i++) {
+            if (i > 0 && !readLine())
+                throw new EOFException("Line " + lineNumber + ": board " + (read + 1) + " is cut short");
+            if (line.length() != 2 * size)
+                throw new IOException("Line " + lineNumber + ": expected " + 2 * size +
+                                      " characters but found " + line.length());
+            for (int j = 0; j < size; j++)
+                board[i][j] = line.substring(2 * j, 2 * j + 2);
+        }
+        read++;
+        return board;
+    }
+
+    /**
+     * Reads the next line into line, without its line ending
+     *
+     * @return false at the end of the file
+     */
+    private boolean readLine() throws IOException
+    {
+        line.setLength(0);
+        boolean any = false;
+        while (true) {
+            if (!buffer.hasRemaining()) {
+                buffer.clear();
+                int n = channel.read(buffer);
+                buffer.flip();
+                if (n < 0) {
+                    if (any)
+                        lineNumber++;
+                    return any;
+                }
+                continue;
+            }
+            any = true;
+            char c = (char) (buffer.get() & 0xff);
+            if (c == '\n') {
+                lineNumber++;
+                return true;
+            }
+            if (c != '\r')
+                line.append(c);
+        }
+    }
+
+    public void close() throws IOException
+    {
+        channel.close();
+    }
+}
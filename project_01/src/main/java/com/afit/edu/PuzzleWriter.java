@@ -0,0 +1,61 @@
+package com.afit.edu;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileWriter;
+import java.io.IOException;
+
+/**
+ * Writes puzzle files in the format PuzzleReader reads: a line with the
+ * number of boards, then each board as lines of two characters per square,
+ * with a blank line between boards.
+ */
+class PuzzleWriter implements Closeable
+{
+    private BufferedWriter out;
+    private long count;   // boards announced in the first line
+    private long written; // boards written so far
+
+    /**
+     * Creates a puzzle file and writes the number of boards
+     *
+     * @param f     - File
+     * @param count - number of boards that will be written
+     * @throws IOException if the file cannot be written
+     */
+    public PuzzleWriter(File f, long count) throws IOException
+    {
+        out = new BufferedWriter(new FileWriter(f));
+        this.count = count;
+        out.write(Long.toString(count));
+        out.write('\n');
+    }
+
+    /**
+     * Writes the next board
+     *
+     * @param board - String[size][size] laid out as Board.importBoard() takes it
+     * @throws IOException if the file cannot be written
+     */
+    public void write(String board[][]) throws IOException
+    {
+        if (written == count)
+            throw new IllegalStateException("The file was announced with " + count + " boards");
+        if (written > 0)
+            out.write('\n');
+        for (int i = 0; i < board.length; i++) {
+            for (int j = 0; j < board[i].length; j++)
+                out.write(board[i][j]);
+            out.write('\n');
+        }
+        written++;
+    }
+
+    public void close() throws IOException
+    {
+        out.close();
+        if (written != count)
+            throw new IOException("Wrote " + written + " boards but the file announces " + count);
+    }
+}
@@ -0,0 +1,100 @@
+package com.afit.edu;
+
+import java.io.File;
+import java.io.IOException;
+
+/**
+ * Answers a board from the DistanceTable of its layout. The table is built
+ * once per layout, by a search over the whole state space, and kept on disk;
+ * after that a board is solved by always taking a move to a state one closer
+ * to the goal, which only reads the table along the solution.
+ */
+class RetrogradeSearch implements Search
+{
+    private BitBoard board;
+    private File dir;
+    private SearchStats stats = new SearchStats();
+    private int moves[] = new int[Board.MAX_MOVES];
+
+    /**
+     * Main constructor
+     *
+     * @param b   - Board
+     * @param dir - directory holding the table files
+     */
+    public RetrogradeSearch(Board b, File dir)
+    {
+        this.board = new BitBoard(b);
+        this.dir = dir;
+    }
+
+    /**
+     * Follows the distances in the table down to the goal
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        DistanceTable table;
+        try {
+            table = DistanceTable.forLayout(board, dir);
+        }
+        catch (IOException e) {
+            throw new IllegalStateException("Cannot load the distance table", e);
+        }
+        int d = table.distance(board.state());
+        if (d == DistanceTable.UNSOLVABLE) {
+            stats.stop(SearchStats.NO_SOLUTION, -1);
+            return null;
+        }
+        stats.stop(SearchStats.GOAL, d);
+
+        int path[] = new int[d];
+        for (int step = 0; step < path.length; step++) {
+            stats.expandedAt(step);
+            int n = board.genMoves(moves);
+            stats.generated += n;
+            int k;
+            for (k = 0; k < n; k++) {
+                board.makeMove(moves[k]);
+                if (table.distance(board.state()) == d - 1) {
+                    path[step] = moves[k];
+                    break;
+                }
+                board.reverseMove(moves[k]);
+            }
+            // A state one move closer always exists unless the table is wrong
+            if (k == n)
+                throw new IllegalStateException("No move from distance " + d + " to " + (d - 1) +
+                                                " in " + table + ", delete it to build it again");
+            d--;
+        }
+        if (!board.isGoal())
+            throw new IllegalStateException("Distance 0 is not a goal state in " + table +
+                                            ", delete it to build it again");
+        stats.expandedAt(path.length);
+        stats.visited(table.size(), table.size());
+        Move result = null;
+        for (int i = path.length - 1; i >= 0; i--)
+            result = new Move(path[i], result);
+        return result;
+    }
+
+    public long nodeCount()
+    {
+        return this.stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return this.stats;
+    }
+
+    /**
+     * The table is built whole and a lookup is as long as the solution, so
+     * there is nothing to cut short
+     */
+    public void setBudget(SearchBudget budget)
+    {
+    }
+}
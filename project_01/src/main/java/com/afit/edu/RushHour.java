@@ -8,84 +8,194 @@ package com.afit.edu;
  * @version 1.0
  */
 import java.io.*;
+import java.util.LinkedList;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 public class RushHour
 {
     public static String newBoard[][];//array for boards
+    static File tableDir = new File("tables"); //distance tables for -search retro
+    static File spillDir = new File(System.getProperty("java.io.tmpdir")); //layer files for -search external
+    static SolutionCache cache; //solutions from earlier runs, null unless -cache is given
+    static String statsFormat; //json or csv, null for no search statistics
+    static PrintStream statsOut = System.out; //where the statistics records go
+    static long maxNodes = Long.MAX_VALUE; //budget for each board
+    static long maxMillis = Long.MAX_VALUE;
+    static long maxHeap = Long.MAX_VALUE;
 
-    public static void main(String[] args) throws IOException {
+    public static void main(String[] args) throws IOException, InterruptedException {
       Board board;//workspace
-      Search search; // the search algorithm
       long startTime; //timer
-      char x[] = new char[2]; //temp variable used for file parsing
+      String searchName = "bfs"; //which search to run
+      String fileName = "hard.txt";
+      int threads = 1; //boards solved at the same time
+      String cacheName = null; //solution cache file
+      int cacheSize = 100000; //most boards kept in the cache
+
+      //command line: [-search bfs|wide|astar|astar-blocking|astar-pdb|ida|ida-pdb|bidir|pbfs|retro|layered|external|offheap]
+      //              [-threads n] [-tables dir] [-table-cache n] [-spill dir] [-cache file] [-cache-size n]
+      //              [-pdb-cache n]
+      //              [-stats json|csv] [-stats-file file]
+      //              [-max-nodes n] [-max-seconds s] [-max-heap mb] [file]
+      for (int a = 0; a < args.length; a++) {
+        if (args[a].equals("-search") && a + 1 < args.length)
+          searchName = args[++a];
+        else if (args[a].equals("-threads") && a + 1 < args.length)
+          threads = Integer.parseInt(args[++a]);
+        else if (args[a].equals("-tables") && a + 1 < args.length)
+          tableDir = new File(args[++a]);
+        else if (args[a].equals("-table-cache") && a + 1 < args.length)
+          DistanceTable.setCacheSize(Integer.parseInt(args[++a]));
+        else if (args[a].equals("-spill") && a + 1 < args.length)
+          spillDir = new File(args[++a]);
+        else if (args[a].equals("-cache") && a + 1 < args.length)
+          cacheName = args[++a];
+        else if (args[a].equals("-cache-size") && a + 1 < args.length)
+          cacheSize = Integer.parseInt(args[++a]);
+        else if (args[a].equals("-pdb-cache") && a + 1 < args.length)
+          PatternDatabase.setCacheSize(Integer.parseInt(args[++a]));
+        else if (args[a].equals("-stats") && a + 1 < args.length)
+          statsFormat = args[++a];
+        else if (args[a].equals("-stats-file") && a + 1 < args.length)
+          statsOut = new PrintStream(new FileOutputStream(args[++a]), true);
+        else if (args[a].equals("-max-nodes") && a + 1 < args.length)
+          maxNodes = Long.parseLong(args[++a]);
+        else if (args[a].equals("-max-seconds") && a + 1 < args.length)
+          maxMillis = (long)(Double.parseDouble(args[++a]) * 1000);
+        else if (args[a].equals("-max-heap") && a + 1 < args.length)
+          maxHeap = Long.parseLong(args[++a]) << 20;
+        else
+          fileName = args[a];
+      }
 
       //open board data file
       //File inputFile = new File("simple.txt");
-      File inputFile = new File("hard.txt");
-      FileReader in = new FileReader(inputFile);
+      File inputFile = new File(fileName);
+      PuzzleReader in = new PuzzleReader(inputFile);
       System.out.println("Input file is : " + inputFile.getName());
+      if (cacheName != null)
+        cache = new SolutionCache(new File(cacheName), cacheSize);
+      if (statsFormat != null && !statsFormat.equals("json") && !statsFormat.equals("csv"))
+        throw new IllegalArgumentException("Unknown stats format: " + statsFormat);
+      if ("csv".equals(statsFormat))
+        statsOut.println(SearchStats.csvHeader());
 
-      //get number of boards from first line
-      int numBoards = in.read() - 48;
-      //used for output
-      int boardCounter = 0;
-      //read carriage return
-      in.read();
-
-      //main prog loop
-      while (numBoards > 0) {
-        //increment board counter
-        boardCounter++;
-
-        //generate new space to store board
-        newBoard = new String[Board.BOARD_SIZE][Board.BOARD_SIZE];
-
-        //nested loop to parse file into an array
-        for (int i = 0; i < Board.BOARD_SIZE; i++) {
-          in.read(); //new line characters
-          for (int j = 0; j < Board.BOARD_SIZE; j++) {
-            in.read(x,0,2);
-            newBoard[i][j] = new String(x);
-          }
-          in.read(); //carrige return
+      //solve the boards on a pool of threads as they are read, but report them
+      //in file order; at most a few boards per thread are held at once
+      startTime = System.currentTimeMillis();
+      ExecutorService pool = Executors.newFixedThreadPool(threads);
+      Queue<Future<Solution>> solutions = new LinkedList<Future<Solution>>();
+      int boardCounter = 0; //boards read
+      int printed = 0;      //boards reported
+      try {
+        while ((newBoard = in.next()) != null) {
+          //create new workspace
+          board = new Board(newBoard.length);
+          // fill the board space
+          board.importBoard(newBoard);
+          boardCounter++;
+          solutions.add(pool.submit(new Solution(searchName, board)));
+          if (solutions.size() > 4 * threads)
+            print(solutions.poll(), ++printed);
         }
+        while (!solutions.isEmpty())
+          print(solutions.poll(), ++printed);
+      }
+      finally {
+        pool.shutdownNow();
+        //close board file
+        in.close();
+        if (cache != null)
+          cache.close();
+        if (statsOut != System.out)
+          statsOut.close();
+      }
+      System.out.println( "Batch: " + boardCounter + " boards  " +
+                          ( (float)(System.currentTimeMillis() - startTime) / 1000.0) +
+                          " seconds on " + threads + " threads" );
+    }
 
-        //decrement boards counter
-        numBoards = numBoards - 1;
+    /**
+     * Waits for a board to be solved and prints it
+     *
+     * @param f            - solution being computed
+     * @param boardCounter - position of the board in the file
+     */
+    private static void print(Future<Solution> f, int boardCounter) throws InterruptedException {
+      try {
+        f.get().print(boardCounter);
+      }
+      catch (ExecutionException e) {
+        System.out.println("Board: " + boardCounter + "  failed: " + e.getCause());
+        System.out.println();
+      }
+    }
 
-        //delete space between board if needed
-        if (numBoards > 0) {
-          //space between boards
-          in.read(); //start
-          in.read(); //return
-        }
+    /**
+     * Solves one board and keeps what is needed to report it
+     */
+    private static class Solution implements Callable<Solution> {
+      String searchName;
+      Board board;
+      Search search; // the search algorithm
+      Move result;
+      long millis;
+      boolean cached; //answered from the solution cache
 
-        //create new workspace
-        board = new Board();
-        // fill the board space
-        board.importBoard(newBoard);
+      Solution(String searchName, Board board) {
+        this.searchName = searchName;
+        this.board = board;
+      }
+
+      public Solution call() throws IOException {
+        //a board solved before needs no search at all
+        SolutionCache.Hit hit = cache == null ? null : cache.lookup(board);
+        if (hit != null) {
+          result = hit.moves;
+          cached = true;
+          return this;
+        }
 
         // HERE: on the following line you need to have a search created, sending it the 
         // initial node.
-        search = new BrdSearch(board);
+        search = createSearch(searchName, board);
+        search.setBudget(new SearchBudget(maxNodes, maxMillis, maxHeap));
 
-        
         //start timer
-        startTime = System.currentTimeMillis();
-        System.out.println("Started board " + boardCounter);
-
+        long startTime = System.currentTimeMillis();
+        long startNanos = System.nanoTime();
+        long startBytes = SearchStats.allocatedBytes();
         //find moves to get out of jungle
-        Move result = search.findMoves();
+        result = search.findMoves();
+        millis = System.currentTimeMillis() - startTime;
+        search.stats().nanos = System.nanoTime() - startNanos;
+        if (startBytes >= 0)
+          search.stats().bytesAllocated = SearchStats.allocatedBytes() - startBytes;
+        if (cache != null && !search.stats().stoppedEarly())
+          cache.put(board, result);
+        return this;
+      }
 
-        System.out.println( "Board: " + boardCounter + "  " + ( (float)(System.currentTimeMillis() - startTime) / 1000.0) +
+      void print(int boardCounter) {
+        System.out.println("Started board " + boardCounter);
+        System.out.println( "Board: " + boardCounter + "  " + ( (float)millis / 1000.0) +
                            " seconds" );
-        System.out.println("Nodes Visited: " + search.nodeCount());
+        if (cached)
+          System.out.println("Nodes Visited: 0 (cached)");
+        else
+          System.out.println("Nodes Visited: " + search.nodeCount());
 
-        // Before printing need to reverse the move list
-        if ( result == null )
+        if ( result == null && !cached && search.stats().stoppedEarly() )
+          System.out.println("Stopped by the " + search.stats().stop + " budget, no solution shorter than " +
+                             search.stats().lowerBound + " moves");
+        else if ( result == null )
           System.out.println("No path found!");
         else {
-          result = reverseMoves(result);
           boolean first = true;
           for (Move theMove = result; theMove != null; theMove = theMove.next ) {
             if ( first ) {
@@ -105,32 +215,55 @@ public class RushHour
           }
         }
         System.out.println();
-      } //end loop
 
-      //close board file
-      in.close();
+        if (statsFormat != null && !cached) {
+          int length = result == null ? -1 : 0;
+          for (Move m = result; m != null; m = m.next)
+            length++;
+          SearchStats stats = search.stats();
+          statsOut.println(statsFormat.equals("json") ? stats.toJson(boardCounter, searchName, length)
+                                                      : stats.toCsv(boardCounter, searchName, length));
+        }
+      }
     }
-    
+
     /**
-     * reverseMoves method: reverses the ordering of a move list.
-     * This is because during the search the moves are stored in reverse order
-     * to make the addition of items less of a hassle.
-     * 
-     * @param b_m
-     * @return
+     * Creates the search named on the command line for a board
+     *
+     * @param name  - search name
+     * @param board - initial node
+     * @return Search
      */
-    private static Move reverseMoves(Move b_m) {
-      Move b_ptr, temp;
-  	  
-	  Move forward = new Move(b_m);
-	  b_ptr = b_m;
-	  while ( b_ptr.next != null ){
-	    b_ptr = b_ptr.next;
-	    temp = new Move(b_ptr);
-	    temp.next = forward;
-	    forward = temp;
-      }
-      return forward;
+    static Search createSearch(String name, Board board) {
+      if (name.equals("bfs") && board.board_size != Board.BOARD_SIZE)
+        return new WideBrdSearch(board);
+      if (name.equals("bfs"))
+        return new BrdSearch(board);
+      if (name.equals("wide"))
+        return new WideBrdSearch(board);
+      if (name.equals("astar"))
+        return new AStarSearch(board, new BlockersOfBlockersHeuristic());
+      if (name.equals("astar-blocking"))
+        return new AStarSearch(board, new BlockingHeuristic());
+      if (name.equals("astar-pdb"))
+        return new AStarSearch(board, new PatternHeuristic(board));
+      if (name.equals("ida-pdb"))
+        return new IDAStarSearch(board, new PatternHeuristic(board));
+      if (name.equals("ida"))
+        return new IDAStarSearch(board, new BlockersOfBlockersHeuristic());
+      if (name.equals("bidir"))
+        return new BidirectionalSearch(board);
+      if (name.equals("pbfs"))
+        return new ParallelBrdSearch(board, Runtime.getRuntime().availableProcessors());
+      if (name.equals("layered"))
+        return new LayeredSearch(board);
+      if (name.equals("offheap"))
+        return new OffHeapSearch(board);
+      if (name.equals("external"))
+        return new ExternalSearch(board, spillDir);
+      if (name.equals("retro"))
+        return new RetrogradeSearch(board, tableDir);
+      throw new IllegalArgumentException("Unknown search: " + name);
     }
 }
 
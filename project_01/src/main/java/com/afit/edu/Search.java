@@ -12,9 +12,9 @@ interface Search {
 		
     /**
      * The findMoves method will be where the search code actually goes. It is 
-     * expecting a return of the move list to the goal. The Board objects keep
-     * track of the moves which got you to the goal so all you need to do is once
-     * the goal is found return the move_list for the goal Board.
+     * expecting a return of the move list to the goal, first move first. A 
+     * SearchTree keeps the parent and incoming move of every node, so once the 
+     * goal is found the list can be rebuilt from the goal node's id.
      * 
      * @return
      */
@@ -27,4 +27,21 @@ interface Search {
      * @return
      */
     public long nodeCount();
+
+    /**
+     * Counts kept while searching: nodes generated and expanded, duplicates,
+     * frontier and visited set sizes and the nodes expanded at each depth.
+     * 
+     * @return
+     */
+    public SearchStats stats();
+
+    /**
+     * Limits the nodes, time and heap findMoves may use. When one runs out 
+     * findMoves returns null and stats() tells which limit it was and how 
+     * many moves a solution needs at least.
+     * 
+     * @param budget
+     */
+    public void setBudget(SearchBudget budget);
 }
@@ -0,0 +1,102 @@
+package com.afit.edu;
+
+/**
+ * Limits on how long a search may run: expanded nodes, wall clock time and
+ * heap in use. A search asks exhausted() before each node it expands and
+ * gives up cleanly when it says yes, leaving the reason and the depth it
+ * proved in its SearchStats. The clock and the heap are only read every
+ * CHECK_INTERVAL calls, so checking costs next to nothing.
+ *
+ * The heap ceiling is on the whole JVM, so with several boards solved at once
+ * the search that notices it is not always the one that used the memory.
+ */
+class SearchBudget
+{
+    static final String NODES = "nodes";
+    static final String TIME = "time";
+    static final String MEMORY = "memory";
+    private static final int CHECK_INTERVAL = 1024;
+
+    private final long maxNodes;
+    private final long maxNanos;
+    private final long maxHeap;
+    private long deadline;
+    private int calls;
+    private String reason;
+
+    /**
+     * No limits
+     */
+    public SearchBudget()
+    {
+        this(Long.MAX_VALUE, Long.MAX_VALUE, Long.MAX_VALUE);
+    }
+
+    /**
+     * Main constructor, Long.MAX_VALUE for no limit
+     *
+     * @param maxNodes  - most nodes expanded
+     * @param maxMillis - most milliseconds from start()
+     * @param maxHeap   - most bytes of heap in use
+     */
+    public SearchBudget(long maxNodes, long maxMillis, long maxHeap)
+    {
+        this.maxNodes = maxNodes;
+        this.maxNanos = maxMillis == Long.MAX_VALUE ? Long.MAX_VALUE : maxMillis * 1000000L;
+        this.maxHeap = maxHeap;
+        start();
+    }
+
+    /**
+     * Starts the clock, searches call it when findMoves begins
+     */
+    public void start()
+    {
+        deadline = maxNanos == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + maxNanos;
+        reason = null;
+        calls = 0;
+    }
+
+    /**
+     * @param expanded - nodes expanded so far
+     * @return true once any limit has been passed
+     */
+    public boolean exhausted(long expanded)
+    {
+        if (reason != null)
+            return true;
+        if (expanded >= maxNodes)
+            reason = NODES;
+        else if (++calls % CHECK_INTERVAL == 0) {
+            if (deadline != Long.MAX_VALUE && System.nanoTime() - deadline > 0)
+                reason = TIME;
+            else if (maxHeap != Long.MAX_VALUE) {
+                Runtime rt = Runtime.getRuntime();
+                if (rt.totalMemory() - rt.freeMemory() > maxHeap)
+                    reason = MEMORY;
+            }
+        }
+        return reason != null;
+    }
+
+    /**
+     * Like exhausted(), but reads the clock and the heap on every call, for
+     * searches that only check between whole layers
+     *
+     * @param expanded - nodes expanded so far
+     * @return true once any limit has been passed
+     */
+    public boolean exhaustedNow(long expanded)
+    {
+        calls = CHECK_INTERVAL - 1;
+        return exhausted(expanded);
+    }
+
+    /**
+     * @return NODES, TIME or MEMORY, null while the budget lasts
+     */
+    public String reason()
+    {
+        return reason;
+    }
+}
@@ -0,0 +1,178 @@
+package com.afit.edu;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Locale;
+
+/**
+ * What a search did to find its answer, kept next to the node count so a slow
+ * board can be told apart: a frontier that blew up, many duplicates, a
+ * crowded visited set, or just slow nodes. Searches fill in the counts they
+ * have; RushHour adds the time and allocation around findMoves and writes one
+ * JSON or CSV record per board.
+ */
+class SearchStats
+{
+    static final String GOAL = "goal";
+    static final String NO_SOLUTION = "unsolvable";
+
+    long generated;          // children produced by move generation
+    long expanded;           // nodes whose children were generated
+    long duplicates;         // children that were already known
+    long peakFrontier;       // most nodes waiting to be expanded at once
+    long visited;            // nodes in the visited set at the end
+    long visitedCapacity;    // slots in the visited set, 0 if it has none
+    long layers[] = new long[16]; // nodes expanded at each depth
+    int depths;              // depths with a layer size
+    long nanos;              // time spent in findMoves
+    long bytesAllocated = -1; // bytes allocated by the solving thread, -1 if unknown
+    String stop;             // GOAL, NO_SOLUTION or the SearchBudget limit that ran out
+    int lowerBound = -1;     // fewest moves a solution can have, -1 if unknown
+
+    /**
+     * Notes why the search ended
+     *
+     * @param stop       - GOAL, NO_SOLUTION or a SearchBudget reason
+     * @param lowerBound - fewest moves a solution can still have, -1 if
+     *                     unknown or there is none
+     */
+    void stop(String stop, int lowerBound)
+    {
+        this.stop = stop;
+        this.lowerBound = lowerBound;
+    }
+
+    /**
+     * @return true if a SearchBudget ended the search before it had an answer
+     */
+    boolean stoppedEarly()
+    {
+        return stop != null && !stop.equals(GOAL) && !stop.equals(NO_SOLUTION);
+    }
+
+    /**
+     * Notes the current frontier size
+     *
+     * @param size - nodes waiting to be expanded
+     */
+    void frontier(long size)
+    {
+        if (size > peakFrontier)
+            peakFrontier = size;
+    }
+
+    /**
+     * Counts one expanded node at a depth
+     *
+     * @param depth - moves from the start
+     */
+    void expandedAt(int depth)
+    {
+        expandedAt(depth, 1);
+    }
+
+    /**
+     * Counts expanded nodes at a depth
+     *
+     * @param depth - moves from the start
+     * @param n     - number of nodes
+     */
+    void expandedAt(int depth, long n)
+    {
+        expanded += n;
+        if (depth >= layers.length) {
+            long grown[] = new long[Math.max(layers.length * 2, depth + 1)];
+            System.arraycopy(layers, 0, grown, 0, depths);
+            layers = grown;
+        }
+        layers[depth] += n;
+        if (depth >= depths)
+            depths = depth + 1;
+    }
+
+    /**
+     * Notes the size of the visited set at the end of the search
+     *
+     * @param size     - states in the set
+     * @param capacity - slots in the set
+     */
+    void visited(long size, long capacity)
+    {
+        visited = size;
+        visitedCapacity = capacity;
+    }
+
+    double loadFactor()
+    {
+        return visitedCapacity == 0 ? 0 : (double) visited / visitedCapacity;
+    }
+
+    double nodesPerSecond()
+    {
+        return nanos == 0 ? 0 : expanded * 1e9 / nanos;
+    }
+
+    /**
+     * Bytes allocated so far by the current thread. Only counts the calling
+     * thread, so work a search hands to other threads is not included.
+     *
+     * @return bytes, -1 if the JVM cannot tell
+     */
+    static long allocatedBytes()
+    {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            com.sun.management.ThreadMXBean sun = (com.sun.management.ThreadMXBean) bean;
+            if (sun.isThreadAllocatedMemorySupported() && sun.isThreadAllocatedMemoryEnabled())
+                return sun.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return -1;
+    }
+
+    private String layerList(String separator)
+    {
+        StringBuilder s = new StringBuilder();
+        for (int d = 0; d < depths; d++) {
+            if (d > 0)
+                s.append(separator);
+            s.append(layers[d]);
+        }
+        return s.toString();
+    }
+
+    /**
+     * @param board  - position of the board in the file
+     * @param search - search name
+     * @param length - moves in the solution, -1 if none was found
+     * @return one line JSON object
+     */
+    String toJson(int board, String search, int length)
+    {
+        return String.format(Locale.ROOT,
+                "{\"board\":%d,\"search\":\"%s\",\"length\":%d,\"stop\":\"%s\",\"lowerBound\":%d," +
+                "\"generated\":%d,\"expanded\":%d," +
+                "\"duplicates\":%d,\"peakFrontier\":%d,\"visited\":%d,\"loadFactor\":%.4f," +
+                "\"layers\":[%s],\"seconds\":%.6f,\"nodesPerSecond\":%.1f,\"bytesAllocated\":%d}",
+                board, search, length, stop, lowerBound, generated, expanded, duplicates, peakFrontier,
+                visited, loadFactor(), layerList(","), nanos / 1e9, nodesPerSecond(), bytesAllocated);
+    }
+
+    static String csvHeader()
+    {
+        return "board,search,length,stop,lowerBound,generated,expanded,duplicates,peakFrontier,visited,loadFactor," +
+               "layers,seconds,nodesPerSecond,bytesAllocated";
+    }
+
+    /**
+     * @param board  - position of the board in the file
+     * @param search - search name
+     * @param length - moves in the solution, -1 if none was found
+     * @return one CSV line matching csvHeader(), layer sizes separated by ';'
+     */
+    String toCsv(int board, String search, int length)
+    {
+        return String.format(Locale.ROOT, "%d,%s,%d,%s,%d,%d,%d,%d,%d,%d,%.4f,%s,%.6f,%.1f,%d",
+                board, search, length, stop, lowerBound, generated, expanded, duplicates, peakFrontier,
+                visited, loadFactor(), layerList(";"), nanos / 1e9, nodesPerSecond(), bytesAllocated);
+    }
+}
@@ -0,0 +1,96 @@
+package com.afit.edu;
+
+/**
+ * Flat arena holding the search tree. Every node discovered by a search gets
+ * an id and only keeps the id of its parent and the packed move that led to
+ * it, so the path is rebuilt once, when the goal is found, instead of being
+ * copied into every Board.
+ */
+class SearchTree
+{
+    private int parent[];
+    private int move[];
+    private int size;
+
+    public SearchTree()
+    {
+        this(1024);
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param capacity - initial number of nodes
+     */
+    public SearchTree(int capacity)
+    {
+        parent = new int[capacity];
+        move = new int[capacity];
+    }
+
+    /**
+     * Adds a node to the tree
+     *
+     * @param p - id of the parent node, -1 for the root
+     * @param m - move from the parent packed by Move.pack()
+     * @return id of the new node
+     */
+    public int add(int p, int m)
+    {
+        if (size == parent.length) {
+            int grown[] = new int[size * 2];
+            System.arraycopy(parent, 0, grown, 0, size);
+            parent = grown;
+            grown = new int[size * 2];
+            System.arraycopy(move, 0, grown, 0, size);
+            move = grown;
+        }
+        parent[size] = p;
+        move[size] = m;
+        return size++;
+    }
+
+    /**
+     * Gives a node a new parent, when a search finds a shorter way to it
+     *
+     * @param id - node id
+     * @param p  - id of the new parent node
+     * @param m  - move from the new parent packed by Move.pack()
+     */
+    public void set(int id, int p, int m)
+    {
+        parent[id] = p;
+        move[id] = m;
+    }
+
+    public int parent(int id)
+    {
+        return parent[id];
+    }
+
+    public int move(int id)
+    {
+        return move[id];
+    }
+
+    public int size()
+    {
+        return size;
+    }
+
+    /**
+     * Rebuilds the moves from the root to a node
+     *
+     * @param id - node id
+     * @return Move list in the order the moves are made
+     */
+    public Move path(int id)
+    {
+        Move result = null;
+        // Walking up from the node gives the moves last first, so adding each
+        // one to the front leaves the list in playing order
+        for (; parent[id] >= 0; id = parent[id])
+            result = new Move(move[id], result);
+        return result;
+    }
+}
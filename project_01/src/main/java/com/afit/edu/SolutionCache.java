@@ -0,0 +1,292 @@
+package com.afit.edu;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Solutions found in earlier runs, so a board that was already solved does
+ * not need a search. Each board is keyed by all of it, not a hash: its size,
+ * which piece is X0, the piece on every square of theBoard and the direction
+ * each piece moves in. Piece indices come from the order importBoard meets the
+ * pieces, so the same puzzle always gets the same key and the same packed
+ * moves, and a different board can never be answered with them.
+ *
+ * Solutions are appended to a file as they are found and read back into a
+ * LinkedHashMap in access order when the cache is opened. Past the size bound
+ * the least recently used board is dropped; the file is rewritten from the
+ * map once it holds twice as many records as the bound. The file starts with
+ * MAGIC and VERSION; one of another format is emptied and started again.
+ */
+class SolutionCache
+{
+    private static final int MAGIC = 0x52485343;   // "RHSC"
+    private static final int VERSION = 2;          // 1 keyed boards by two hashes and had no header
+    private static final int HEADER = 8;
+    private static final int NO_PATH = -1;
+    private static final int MAX_KEY = 2 + (Board.MAX_SIZE + 1) * Board.MAX_SIZE + Board.PIECE_COUNT;
+    private static final int MAX_LENGTH = 1 << 16; // longer lengths can only come from a corrupt record
+
+    private final File file;
+    private final int maxEntries;
+    private final Map<Key, int[]> solutions;
+    private DataOutputStream out;
+    private int records; // records in the file, including replaced ones
+
+    /**
+     * Main constructor, reads the solutions already in the file
+     *
+     * @param file       - cache file, created when missing
+     * @param maxEntries - most boards kept
+     * @throws IOException if the file cannot be read or opened for append
+     */
+    public SolutionCache(File file, final int maxEntries) throws IOException
+    {
+        this.file = file;
+        this.maxEntries = maxEntries;
+        this.solutions = new LinkedHashMap<Key, int[]>(16, 0.75f, true) {
+            protected boolean removeEldestEntry(Map.Entry<Key, int[]> eldest) {
+                return size() > maxEntries;
+            }
+        };
+        if (file.exists()) {
+            // Drop a record cut short by a crash, so new ones start on a record
+            // boundary, or the whole file if it is of another format
+            long end = load();
+            if (end < file.length()) {
+                RandomAccessFile raf = new RandomAccessFile(file, "rw");
+                try {
+                    raf.setLength(end);
+                }
+                finally {
+                    raf.close();
+                }
+            }
+        }
+        out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        if (file.length() == 0) {
+            writeHeader(out);
+            out.flush();
+        }
+    }
+
+    /**
+     * Reads the records of the file up to the first one that is cut short or
+     * has a length no record can have
+     *
+     * @return byte offset just past the last complete record, 0 if the file
+     *         does not start with this format's header
+     * @throws IOException if the file cannot be read
+     */
+    private long load() throws IOException
+    {
+        DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)));
+        try {
+            try {
+                if (in.readInt() != MAGIC || in.readInt() != VERSION)
+                    return 0;
+            }
+            catch (EOFException e) {
+                return 0;
+            }
+            long end = HEADER;
+            while (true) {
+                Key key;
+                int moves[];
+                try {
+                    int keyLength = in.readInt();
+                    if (keyLength < 1 || keyLength > MAX_KEY)
+                        break; // a corrupt tail is ignored like a short one
+                    byte bytes[] = new byte[keyLength];
+                    in.readFully(bytes);
+                    key = new Key(bytes);
+                    int length = in.readInt();
+                    if (length != NO_PATH && (length < 0 || length > MAX_LENGTH))
+                        break;
+                    moves = length == NO_PATH ? null : new int[length];
+                    for (int i = 0; i < length; i++)
+                        moves[i] = in.readInt();
+                }
+                catch (EOFException e) {
+                    break; // a record cut short by a crash is ignored
+                }
+                solutions.put(key, moves);
+                records++;
+                end += 4 + key.bytes.length + 4 + 4L * (moves == null ? 0 : moves.length);
+            }
+            return end;
+        }
+        finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Looks a board up in one step, so no other thread can evict it between
+     * finding it and reading its solution
+     *
+     * @param b - Board
+     * @return Hit holding the cached solution, null if the board is not cached
+     */
+    public synchronized Hit lookup(Board b)
+    {
+        Key key = new Key(b);
+        int moves[] = solutions.get(key);
+        if (moves == null && !solutions.containsKey(key))
+            return null;
+        Move result = null;
+        if (moves != null)
+            for (int i = moves.length - 1; i >= 0; i--)
+                result = new Move(moves[i], result);
+        return new Hit(result);
+    }
+
+    /**
+     * Records the solution of a board
+     *
+     * @param b      - Board as it was before the search
+     * @param result - Move list found for it, null if it has none
+     * @throws IOException if the file cannot be written
+     */
+    public synchronized void put(Board b, Move result) throws IOException
+    {
+        int moves[] = null;
+        if (result != null) {
+            int length = 0;
+            for (Move m = result; m != null; m = m.next)
+                length++;
+            moves = new int[length];
+            length = 0;
+            for (Move m = result; m != null; m = m.next)
+                moves[length++] = m.pack();
+        }
+        Key key = new Key(b);
+        solutions.put(key, moves);
+        write(out, key, moves);
+        out.flush();
+        if (++records > 2 * maxEntries)
+            compact();
+    }
+
+    /**
+     * Rewrites the file with only the boards still in the map. The new file is
+     * written beside it and moved over it in one step, so a failure at any
+     * point leaves the old file whole and the cache still appending to it.
+     */
+    private void compact() throws IOException
+    {
+        File temp = new File(file.getPath() + ".tmp");
+        DataOutputStream o = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(temp)));
+        try {
+            writeHeader(o);
+            for (Map.Entry<Key, int[]> e : solutions.entrySet())
+                write(o, e.getKey(), e.getValue());
+        }
+        finally {
+            o.close();
+        }
+        out.close();
+        try {
+            Files.move(temp.toPath(), file.toPath(),
+                       StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            records = solutions.size();
+        }
+        finally {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file, true)));
+        }
+    }
+
+    private static void writeHeader(DataOutputStream o) throws IOException
+    {
+        o.writeInt(MAGIC);
+        o.writeInt(VERSION);
+    }
+
+    private static void write(DataOutputStream o, Key key, int moves[]) throws IOException
+    {
+        o.writeInt(key.bytes.length);
+        o.write(key.bytes);
+        if (moves == null) {
+            o.writeInt(NO_PATH);
+            return;
+        }
+        o.writeInt(moves.length);
+        for (int i = 0; i < moves.length; i++)
+            o.writeInt(moves[i]);
+    }
+
+    public synchronized int size()
+    {
+        return solutions.size();
+    }
+
+    public synchronized void close() throws IOException
+    {
+        out.close();
+    }
+
+    /**
+     * A board found in the cache. Its move list is null when the board was
+     * cached as having no solution.
+     */
+    static class Hit
+    {
+        final Move moves;
+
+        Hit(Move moves)
+        {
+            this.moves = moves;
+        }
+    }
+
+    /**
+     * Exact key of a board: its size, X0's index + 1, the index + 1 of the
+     * piece on every square of theBoard, 0 for an empty one, and then the
+     * direction each piece moves in
+     */
+    private static class Key
+    {
+        final byte bytes[];
+
+        Key(byte bytes[])
+        {
+            this.bytes = bytes;
+        }
+
+        Key(Board b)
+        {
+            int size = b.board_size;
+            bytes = new byte[2 + (size + 1) * size + b.piece_count];
+            int k = 0;
+            bytes[k++] = (byte) size;
+            bytes[k++] = (byte) (b.findPiece("X0") + 1);
+            for (int i = 0; i < size + 1; i++)
+                for (int j = 0; j < size; j++)
+                    bytes[k++] = (byte) (b.theBoard[i][j] + 1);
+            for (int i = 0; i < b.piece_count; i++)
+                bytes[k++] = (byte) b.piece_list[i].move_direction;
+        }
+
+        public boolean equals(Object o)
+        {
+            return o instanceof Key && Arrays.equals(bytes, ((Key) o).bytes);
+        }
+
+        public int hashCode()
+        {
+            return Arrays.hashCode(bytes);
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.afit.edu;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Arrays;
+
+/**
+ * A file of WideBitBoard states, each a fixed number of longs, in sorted
+ * order. The file is memory-mapped read only, in pieces of up to CHUNK bytes
+ * since one mapping cannot pass 2GB, so reading it front to back is plain
+ * sequential I/O and a lookup is a binary search that only touches the pages
+ * it needs.
+ *
+ * States are compared a word at a time, first word first, as signed longs.
+ */
+class StateFile
+{
+    static final long CHUNK = 1L << 30;
+
+    private final File file;
+    private final int words;
+    private final long size;
+    private final long perChunk;          // states in each mapping
+    private final MappedByteBuffer chunks[];
+
+    /**
+     * Maps a state file
+     *
+     * @param file  - file written by write()
+     * @param words - longs per state
+     * @throws IOException if the file cannot be mapped
+     */
+    StateFile(File file, int words) throws IOException
+    {
+        this.file = file;
+        this.words = words;
+        long bytes = 8L * words;
+        RandomAccessFile raf = new RandomAccessFile(file, "r");
+        try {
+            size = raf.length() / bytes;
+            perChunk = CHUNK / bytes;
+            chunks = new MappedByteBuffer[(int) ((size + perChunk - 1) / perChunk)];
+            for (int c = 0; c < chunks.length; c++) {
+                long start = c * perChunk * bytes;
+                chunks[c] = raf.getChannel().map(FileChannel.MapMode.READ_ONLY, start,
+                                                 Math.min(perChunk * bytes, size * bytes - start));
+            }
+        }
+        finally {
+            raf.close();
+        }
+    }
+
+    /**
+     * Writes states to a file in the order given
+     *
+     * @param file   - file to write
+     * @param states - states, words longs each
+     * @param count  - number of states
+     * @param words  - longs per state
+     * @return the file, mapped
+     * @throws IOException if the file cannot be written
+     */
+    static StateFile write(File file, long states[], int count, int words) throws IOException
+    {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(file), 1 << 16));
+        try {
+            for (int i = 0; i < count * words; i++)
+                out.writeLong(states[i]);
+        }
+        finally {
+            out.close();
+        }
+        return new StateFile(file, words);
+    }
+
+    public long size()
+    {
+        return size;
+    }
+
+    File file()
+    {
+        return file;
+    }
+
+    /**
+     * Copies a state out of the file
+     *
+     * @param i   - index of the state
+     * @param dst - array to copy to
+     * @param at  - index in dst of the first word
+     */
+    void read(long i, long dst[], int at)
+    {
+        MappedByteBuffer chunk = chunks[(int) (i / perChunk)];
+        int offset = (int) (i % perChunk) * 8 * words;
+        for (int w = 0; w < words; w++)
+            dst[at + w] = chunk.getLong(offset + 8 * w);
+    }
+
+    /**
+     * @param key - state to look for
+     * @param at  - index in key of the first word
+     * @return true if the state is in the file
+     */
+    boolean contains(long key[], int at)
+    {
+        long probe[] = new long[words];
+        long low = 0, high = size - 1;
+        while (low <= high) {
+            long mid = (low + high) >>> 1;
+            read(mid, probe, 0);
+            int c = compare(probe, 0, key, at, words);
+            if (c < 0)
+                low = mid + 1;
+            else if (c > 0)
+                high = mid - 1;
+            else
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Orders two states
+     *
+     * @return negative, zero or positive as the first is less, equal or greater
+     */
+    static int compare(long a[], int ai, long b[], int bi, int words)
+    {
+        for (int w = 0; w < words; w++)
+            if (a[ai + w] != b[bi + w])
+                return a[ai + w] < b[bi + w] ? -1 : 1;
+        return 0;
+    }
+
+    /**
+     * Sorts states in place and drops the repeats
+     *
+     * @param states - states, words longs each
+     * @param count  - number of states
+     * @param words  - longs per state
+     * @return number of different states, now at the front
+     */
+    static int sortUnique(long states[], int count, int words)
+    {
+        if (words == 1)
+            Arrays.sort(states, 0, count);
+        else {
+            // Heap sort, so whole states move together without an index array
+            for (int i = count / 2 - 1; i >= 0; i--)
+                sift(states, i, count, words);
+            for (int end = count - 1; end > 0; end--) {
+                swap(states, 0, end, words);
+                sift(states, 0, end, words);
+            }
+        }
+        int unique = 0;
+        for (int i = 0; i < count; i++)
+            if (unique == 0 || compare(states, i * words, states, (unique - 1) * words, words) != 0) {
+                System.arraycopy(states, i * words, states, unique * words, words);
+                unique++;
+            }
+        return unique;
+    }
+
+    private static void sift(long a[], int i, int count, int words)
+    {
+        for (int c; (c = 2 * i + 1) < count; i = c) {
+            if (c + 1 < count && compare(a, c * words, a, (c + 1) * words, words) < 0)
+                c++;
+            if (compare(a, i * words, a, c * words, words) >= 0)
+                return;
+            swap(a, i, c, words);
+        }
+    }
+
+    private static void swap(long a[], int i, int j, int words)
+    {
+        for (int w = 0; w < words; w++) {
+            long t = a[i * words + w];
+            a[i * words + w] = a[j * words + w];
+            a[j * words + w] = t;
+        }
+    }
+}
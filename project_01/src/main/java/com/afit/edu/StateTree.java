@@ -0,0 +1,51 @@
+package com.afit.edu;
+
+/**
+ * SearchTree that also keeps the BitBoard state of every node, for searches
+ * that have to expand a node again from its id.
+ */
+class StateTree extends SearchTree
+{
+    private long states[];
+
+    public StateTree()
+    {
+        this(1024);
+    }
+
+    /**
+     * Main constructor
+     *
+     * @param capacity - initial number of nodes
+     */
+    public StateTree(int capacity)
+    {
+        super(capacity);
+        states = new long[capacity];
+    }
+
+    /**
+     * Adds a node to the tree
+     *
+     * @param state - BitBoard state of the node
+     * @param p     - id of the parent node, -1 for a root
+     * @param m     - move from the parent packed by Move.pack()
+     * @return id of the new node
+     */
+    public int add(long state, int p, int m)
+    {
+        int id = add(p, m);
+        if (id == states.length) {
+            long grown[] = new long[id * 2];
+            System.arraycopy(states, 0, grown, 0, id);
+            states = grown;
+        }
+        states[id] = state;
+        return id;
+    }
+
+    public long state(int id)
+    {
+        return states[id];
+    }
+}
@@ -0,0 +1,143 @@
+package com.afit.edu;
+
+/**
+ * Map from long keys to long values that many threads can update at once.
+ * The keys are split over a fixed number of stripes by hash, and each stripe
+ * is an open addressing table like LongIntMap guarded by its own lock, so
+ * threads only wait for each other when they hit the same stripe.
+ */
+class StripedLongMap
+{
+    public static final long MISSING = Long.MIN_VALUE;
+    private static final int STRIPE_BITS = 6;
+
+    private final Stripe stripes[] = new Stripe[1 << STRIPE_BITS];
+
+    private static class Stripe
+    {
+        long keys[] = new long[256];
+        long values[] = new long[256];
+        int size;
+        boolean hasZero;   // 0 marks an empty slot, so it is kept aside
+        long zeroValue;
+
+        long putMin(long key, long value)
+        {
+            if (key == 0) {
+                if (!hasZero || value < zeroValue)
+                    zeroValue = value;
+                hasZero = true;
+                return zeroValue;
+            }
+            int mask = keys.length - 1;
+            int i = LongHashSet.hash(key) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key) {
+                    if (value < values[i])
+                        values[i] = value;
+                    return values[i];
+                }
+                i = (i + 1) & mask;
+            }
+            keys[i] = key;
+            values[i] = value;
+            if (++size * 2 > keys.length)
+                grow();
+            return value;
+        }
+
+        long get(long key)
+        {
+            if (key == 0)
+                return hasZero ? zeroValue : MISSING;
+            int mask = keys.length - 1;
+            int i = LongHashSet.hash(key) & mask;
+            while (keys[i] != 0) {
+                if (keys[i] == key)
+                    return values[i];
+                i = (i + 1) & mask;
+            }
+            return MISSING;
+        }
+
+        private void grow()
+        {
+            long oldKeys[] = keys;
+            long oldValues[] = values;
+            keys = new long[oldKeys.length * 2];
+            values = new long[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int j = 0; j < oldKeys.length; j++) {
+                if (oldKeys[j] == 0)
+                    continue;
+                int i = LongHashSet.hash(oldKeys[j]) & mask;
+                while (keys[i] != 0)
+                    i = (i + 1) & mask;
+                keys[i] = oldKeys[j];
+                values[i] = oldValues[j];
+            }
+        }
+    }
+
+    public StripedLongMap()
+    {
+        for (int i = 0; i < stripes.length; i++)
+            stripes[i] = new Stripe();
+    }
+
+    private Stripe stripe(long key)
+    {
+        // The top bits pick the stripe, the low bits the slot inside it
+        return stripes[LongHashSet.hash(key) >>> (32 - STRIPE_BITS)];
+    }
+
+    /**
+     * Stores a value for a key unless a smaller one is already stored
+     *
+     * @param key   - long
+     * @param value - long
+     * @return the value now stored for the key
+     */
+    public long putMin(long key, long value)
+    {
+        Stripe s = stripe(key);
+        synchronized (s) {
+            return s.putMin(key, value);
+        }
+    }
+
+    /**
+     * @param key - long
+     * @return value stored for the key, MISSING if there is none
+     */
+    public long get(long key)
+    {
+        Stripe s = stripe(key);
+        synchronized (s) {
+            return s.get(key);
+        }
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (Stripe s : stripes)
+            synchronized (s) {
+                size += s.size + (s.hasZero ? 1 : 0);
+            }
+        return size;
+    }
+
+    /**
+     * @return slots over all the stripes
+     */
+    public long capacity()
+    {
+        long capacity = 0;
+        for (Stripe s : stripes)
+            synchronized (s) {
+                capacity += s.keys.length;
+            }
+        return capacity;
+    }
+}
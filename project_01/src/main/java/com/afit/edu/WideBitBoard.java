@@ -0,0 +1,340 @@
+package com.afit.edu;
+
+/**
+ * BitBoard for boards of any size up to Board.MAX_SIZE. The occupancy mask
+ * and the packed piece offsets are spread over as many longs as the board
+ * needs, with 4 bits per offset so coordinates up to 15 fit. A 10x10 board
+ * takes two longs of occupancy, and one long of offsets holds 16 movable
+ * coordinates.
+ *
+ * BitBoard stays the one to use on the standard board: everything there fits
+ * in single longs and whole pieces are tested with one mask. Moves, their
+ * order and the piece indices are the same as in Board.
+ */
+public class WideBitBoard
+{
+    static final int OFFSET_BITS = 4;
+    static final long OFFSET_MASK = (1L << OFFSET_BITS) - 1;
+    static final int SLOTS_PER_WORD = 64 / OFFSET_BITS;
+
+    // Piece layout, shared between copies
+    final int size, index, exitX, exitY;
+    final int piece_count;
+    final int goal_piece;          // index of X0
+    final int dx[], dy[];          // size of each piece
+    final int move_direction[];
+    final int x_slot[], y_slot[];  // offset slot of each coordinate, -1 if fixed
+    final int fixed_x[], fixed_y[];
+
+    public final long occupied[];  // one bit per square, bit x*size+y
+    public final long offsets[];   // OFFSET_BITS per movable coordinate
+
+    /**
+     * Builds the compact version of a board
+     *
+     * @param b - Board
+     */
+    public WideBitBoard(Board b)
+    {
+        size = b.board_size;
+        index = b.board_index;
+        exitX = b.exit_x;
+        exitY = b.exit_y;
+        piece_count = b.piece_count;
+        goal_piece = b.findPiece("X0");
+        dx = new int[piece_count];
+        dy = new int[piece_count];
+        move_direction = new int[piece_count];
+        x_slot = new int[piece_count];
+        y_slot = new int[piece_count];
+        fixed_x = new int[piece_count];
+        fixed_y = new int[piece_count];
+
+        int slots = 0;
+        for (int i = 0; i < piece_count; i++) {
+            Piece p = b.piece_list[i];
+            dx[i] = p.dx;
+            dy[i] = p.dy;
+            move_direction[i] = p.move_direction;
+            // A piece only needs an offset for the coordinates it can change
+            if (p.move_direction == Piece.EAST_WEST || p.move_direction == Piece.NSEW)
+                x_slot[i] = slots++;
+            else
+                x_slot[i] = -1;
+            if (p.move_direction == Piece.NORTH_SOUTH || p.move_direction == Piece.NSEW)
+                y_slot[i] = slots++;
+            else
+                y_slot[i] = -1;
+            fixed_x[i] = p.x;
+            fixed_y[i] = p.y;
+        }
+        occupied = new long[((size + 1) * size + 63) / 64];
+        offsets = new long[Math.max(1, (slots + SLOTS_PER_WORD - 1) / SLOTS_PER_WORD)];
+
+        for (int i = 0; i < piece_count; i++) {
+            setX(i, b.piece_list[i].x);
+            setY(i, b.piece_list[i].y);
+            fill(i, true);
+        }
+    }
+
+    /**
+     * Copy constructor. The state is copied, the layout is shared.
+     *
+     * @param b - WideBitBoard
+     */
+    public WideBitBoard(WideBitBoard b)
+    {
+        size = b.size;
+        index = b.index;
+        exitX = b.exitX;
+        exitY = b.exitY;
+        piece_count = b.piece_count;
+        goal_piece = b.goal_piece;
+        dx = b.dx;
+        dy = b.dy;
+        move_direction = b.move_direction;
+        x_slot = b.x_slot;
+        y_slot = b.y_slot;
+        fixed_x = b.fixed_x;
+        fixed_y = b.fixed_y;
+        occupied = b.occupied.clone();
+        offsets = b.offsets.clone();
+    }
+
+    public int getX(int i)
+    {
+        int s = x_slot[i];
+        if (s < 0)
+            return fixed_x[i];
+        return (int) (offsets[s / SLOTS_PER_WORD] >>> (s % SLOTS_PER_WORD * OFFSET_BITS) & OFFSET_MASK);
+    }
+
+    public int getY(int i)
+    {
+        int s = y_slot[i];
+        if (s < 0)
+            return fixed_y[i];
+        return (int) (offsets[s / SLOTS_PER_WORD] >>> (s % SLOTS_PER_WORD * OFFSET_BITS) & OFFSET_MASK);
+    }
+
+    private void setX(int i, int x)
+    {
+        if (x_slot[i] >= 0)
+            setSlot(x_slot[i], x);
+    }
+
+    private void setY(int i, int y)
+    {
+        if (y_slot[i] >= 0)
+            setSlot(y_slot[i], y);
+    }
+
+    private void setSlot(int s, int value)
+    {
+        int w = s / SLOTS_PER_WORD;
+        int shift = s % SLOTS_PER_WORD * OFFSET_BITS;
+        offsets[w] = (offsets[w] & ~(OFFSET_MASK << shift)) | ((long) value << shift);
+    }
+
+    /**
+     * Sets or clears the squares covered by piece i
+     */
+    private void fill(int i, boolean on)
+    {
+        int x0 = getX(i), y0 = getY(i);
+        for (int x = x0; x < x0 + dx[i]; x++)
+            for (int y = y0; y < y0 + dy[i]; y++) {
+                int c = x * size + y;
+                if (on)
+                    occupied[c >>> 6] |= 1L << c;
+                else
+                    occupied[c >>> 6] &= ~(1L << c);
+            }
+    }
+
+    private boolean isEmpty(int x, int y)
+    {
+        int c = x * size + y;
+        return (occupied[c >>> 6] & (1L << c)) == 0;
+    }
+
+    /**
+     * @return number of longs in a state
+     */
+    public int stateWords()
+    {
+        return offsets.length;
+    }
+
+    /**
+     * Copies the state, which is exact like BitBoard.state()
+     *
+     * @param dst - where to copy it
+     * @param at  - index of the first long
+     */
+    public void state(long dst[], int at)
+    {
+        System.arraycopy(offsets, 0, dst, at, offsets.length);
+    }
+
+    /**
+     * Moves every piece to a position copied out by state()
+     *
+     * @param src - where the state is
+     * @param at  - index of its first long
+     */
+    public void setState(long src[], int at)
+    {
+        System.arraycopy(src, at, offsets, 0, offsets.length);
+        for (int w = 0; w < occupied.length; w++)
+            occupied[w] = 0;
+        for (int i = 0; i < piece_count; i++)
+            fill(i, true);
+    }
+
+    /**
+     * @param src - where a state is
+     * @param at  - index of its first long
+     * @return true if it is the current state
+     */
+    public boolean sameState(long src[], int at)
+    {
+        for (int w = 0; w < offsets.length; w++)
+            if (src[at + w] != offsets[w])
+                return false;
+        return true;
+    }
+
+    /**
+     * @return hash of the current state, the same as hash() gives for a copy
+     */
+    public long hash()
+    {
+        return hash(offsets, 0, offsets.length);
+    }
+
+    /**
+     * Hash of a state stored in an array
+     *
+     * @param src   - where the state is
+     * @param at    - index of its first long
+     * @param words - longs in the state
+     * @return long
+     */
+    static long hash(long src[], int at, int words)
+    {
+        long h = 0;
+        for (int w = 0; w < words; w++) {
+            h = (h ^ src[at + w]) * 0x9e3779b97f4a7c15L;
+            h ^= h >>> 32;
+        }
+        return h;
+    }
+
+    /**
+     * Generate the possible moves for the current state into a buffer the
+     * caller reuses, packed by Move.pack(), in the same order as
+     * Board.genMoves().
+     *
+     * @param moves - int[] of at least Board.MAX_MOVES entries
+     * @return number of moves
+     */
+    int genMoves(int moves[])
+    {
+        int n = 0;
+        int i, j, x, y;
+        for (i = 0; i < piece_count; i++) {
+            x = getX(i);
+            y = getY(i);
+            // If it can move North and South (Up/Down)
+            if (move_direction[i] == Piece.NORTH_SOUTH || move_direction[i] == Piece.NSEW) {
+                for (j = 1; j < index; j++) {
+                    if (y + dy[i] + j - 1 > index)
+                        break;
+                    if (!isEmpty(x, y + dy[i] + j - 1) || !isEmpty(x + dx[i] - 1, y + dy[i] + j - 1))
+                        break;
+                    moves[n++] = Move.pack(i, Move.NORTH, j);
+                }
+                for (j = 1; j < index; j++) {
+                    if (y - j < 0)
+                        break;
+                    if (!isEmpty(x, y - j) || !isEmpty(x + dx[i] - 1, y - j))
+                        break;
+                    moves[n++] = Move.pack(i, Move.SOUTH, j);
+                }
+            }
+            // If it can move East and West (Left/Right)
+            if (move_direction[i] == Piece.EAST_WEST || move_direction[i] == Piece.NSEW) {
+                for (j = 1; j < index; j++) {
+                    if (x + dx[i] + j - 1 > index)
+                        break;
+                    if (!isEmpty(x + dx[i] + j - 1, y) || !isEmpty(x + dx[i] + j - 1, y + dy[i] - 1))
+                        break;
+                    moves[n++] = Move.pack(i, Move.EAST, j);
+                }
+                // X0 can slide on into the exit column
+                if (i == goal_piece && y == exitY && x + dx[i] < exitX) {
+                    if (isEmpty(x + dx[i] + j - 1, y) && isEmpty(x + dx[i] + j - 1, y + dy[i] - 1))
+                        moves[n++] = Move.pack(i, Move.EAST, j);
+                }
+                for (j = 1; j < index; j++) {
+                    if (x - j < 0)
+                        break;
+                    if (!isEmpty(x - j, y) || !isEmpty(x - j, y + dy[i] - 1))
+                        break;
+                    moves[n++] = Move.pack(i, Move.WEST, j);
+                }
+            }
+        }
+        // Board builds its list last move first, so reverse to match its order
+        for (i = 0, j = n - 1; i < j; i++, j--) {
+            int temp = moves[i];
+            moves[i] = moves[j];
+            moves[j] = temp;
+        }
+        return n;
+    }
+
+    /**
+     * make a move packed by Move.pack()
+     *
+     * @param m - packed move
+     */
+    public void makeMove(int m)
+    {
+        int i = Move.pieceOf(m);
+        int spaces = Move.spacesOf(m);
+        int direction = Move.directionOf(m);
+        fill(i, false);
+        if (direction == Move.NORTH)
+            setY(i, getY(i) + spaces);
+        else if (direction == Move.SOUTH)
+            setY(i, getY(i) - spaces);
+        else if (direction == Move.EAST)
+            setX(i, getX(i) + spaces);
+        else // Move.WEST
+            setX(i, getX(i) - spaces);
+        fill(i, true);
+    }
+
+    /**
+     * reverse a move packed by Move.pack()
+     *
+     * @param m - packed move
+     */
+    public void reverseMove(int m)
+    {
+        makeMove(Move.opposite(m));
+    }
+
+    /**
+     * Return true is board is in goal state
+     *
+     * @return boolean
+     */
+    public boolean isGoal()
+    {
+        return goal_piece >= 0 && getY(goal_piece) == exitY && getX(goal_piece) == exitX - 1;
+    }
+}
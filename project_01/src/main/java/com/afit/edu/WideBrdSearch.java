@@ -0,0 +1,134 @@
+package com.afit.edu;
+
+/**
+ * Breadth first search for boards of any size. Nodes are found in the same
+ * order as BrdSearch finds them, but a node is only its WideBitBoard state:
+ * a few longs in one flat array, indexed by the node id, with the parent and
+ * move in a SearchTree. The visited set is an open addressing table of node
+ * ids that compares states in that array, so nothing is allocated per node.
+ */
+class WideBrdSearch implements Search
+{
+    private WideBitBoard board;
+    private int words;                 // longs per state
+    private long states[];             // state of every node, by id
+    private int table[];               // node id + 1 per slot, 0 for empty
+    private SearchTree tree = new SearchTree();
+    private int head;                  // next node to expand
+    private int depth = -1;            // depth of the node at head
+    private int layerEnd;              // first node one layer deeper
+    private int moves[] = new int[Board.MAX_MOVES];
+    private SearchStats stats = new SearchStats();
+    private SearchBudget budget = new SearchBudget();
+
+    /**
+     * Main constructor
+     *
+     * @param b - Board
+     */
+    public WideBrdSearch(Board b)
+    {
+        this.board = new WideBitBoard(b);
+        this.words = board.stateWords();
+        this.states = new long[1024 * words];
+        this.table = new int[2048];
+        add(-1, 0);
+    }
+
+    /**
+     * Adds the current state of board unless it has been seen
+     *
+     * @return false if it was already there
+     */
+    private boolean add(int parent, int move)
+    {
+        int mask = table.length - 1;
+        int slot = (int) board.hash() & mask;
+        for (int id; (id = table[slot] - 1) >= 0; slot = (slot + 1) & mask)
+            if (board.sameState(states, id * words))
+                return false;
+
+        int id = tree.add(parent, move);
+        if ((id + 1) * words > states.length) {
+            long grown[] = new long[states.length * 2];
+            System.arraycopy(states, 0, grown, 0, states.length);
+            states = grown;
+        }
+        board.state(states, id * words);
+        table[slot] = id + 1;
+        if (tree.size() * 2 > table.length)
+            grow();
+        return true;
+    }
+
+    private void grow()
+    {
+        table = new int[table.length * 2];
+        int mask = table.length - 1;
+        for (int id = 0; id < tree.size(); id++) {
+            int slot = (int) WideBitBoard.hash(states, id * words, words) & mask;
+            while (table[slot] != 0)
+                slot = (slot + 1) & mask;
+            table[slot] = id + 1;
+        }
+    }
+
+    /**
+     * Uses breadth first search to find the shortest move list
+     *
+     * @return Move list for the goal, null if there is none
+     */
+    public Move findMoves()
+    {
+        budget.start();
+        while (head < tree.size()) {
+            int v = head;
+            if (v == layerEnd) {
+                // Every node of the next layer was added by this one
+                depth++;
+                layerEnd = tree.size();
+            }
+            if (budget.exhausted(stats.expanded)) {
+                // Every node shallower than v has been checked for the goal
+                stats.stop(budget.reason(), depth);
+                stats.visited(tree.size(), table.length);
+                return null;
+            }
+            head++;
+            board.setState(states, v * words);
+            stats.expandedAt(depth);
+            if (board.isGoal()) {
+                stats.stop(SearchStats.GOAL, depth);
+                stats.visited(tree.size(), table.length);
+                return tree.path(v);
+            }
+            int n = board.genMoves(moves);
+            stats.generated += n;
+            for (int k = 0; k < n; k++) {
+                board.makeMove(moves[k]);
+                if (!add(v, moves[k]))
+                    stats.duplicates++;
+                board.reverseMove(moves[k]);
+            }
+            stats.frontier(tree.size() - head);
+        }
+        stats.stop(SearchStats.NO_SOLUTION, -1);
+        stats.visited(tree.size(), table.length);
+        return null;
+    }
+
+    public long nodeCount()
+    {
+        return stats.expanded;
+    }
+
+    public SearchStats stats()
+    {
+        return stats;
+    }
+
+    public void setBudget(SearchBudget budget)
+    {
+        this.budget = budget;
+    }
+}
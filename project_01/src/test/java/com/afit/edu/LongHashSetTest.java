@@ -0,0 +1,61 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * Round trips through LongHashSet, with enough keys to make it grow several
+ * times. Key 0 marks an empty slot in the table, so it is always among the
+ * keys.
+ */
+public class LongHashSetTest
+{
+    static final int KEYS = 50000;
+
+    /**
+     * The keys the primitive collection tests use
+     *
+     * @return KEYS distinct keys, 0 first, the rest random
+     */
+    static long[] keys()
+    {
+        Random random = new Random(42);
+        Set<Long> seen = new HashSet<Long>();
+        long keys[] = new long[KEYS];
+        seen.add(0L);
+        for (int i = 1; i < KEYS; i++) {
+            long key;
+            do
+                key = random.nextLong();
+            while (!seen.add(key));
+            keys[i] = key;
+        }
+        return keys;
+    }
+
+    @Test
+    public void addContainsGrow()
+    {
+        long keys[] = keys();
+        LongHashSet set = new LongHashSet(4);
+        for (long key : keys) {
+            assertFalse(set.contains(key));
+            assertTrue(set.add(key));
+        }
+        for (long key : keys)
+            assertFalse(set.add(key));
+        assertEquals(KEYS, set.size());
+        assertTrue(set.capacity() >= 2 * KEYS);
+        for (long key : keys) {
+            assertTrue(set.contains(key));
+            assertFalse(set.contains(~key));
+        }
+    }
+}
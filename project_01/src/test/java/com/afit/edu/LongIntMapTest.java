@@ -0,0 +1,32 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Round trips through LongIntMap, through several grows and with key 0
+ */
+public class LongIntMapTest
+{
+    private static final int KEYS = LongHashSetTest.KEYS;
+
+    @Test
+    public void putGetGrow()
+    {
+        long keys[] = LongHashSetTest.keys();
+        LongIntMap map = new LongIntMap(4);
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(-1, map.get(keys[i]));
+            map.put(keys[i], i);
+        }
+        // Replacing a value leaves the size alone
+        for (int i = 0; i < KEYS; i += 2)
+            map.put(keys[i], i + 1);
+        assertEquals(KEYS, map.size());
+        assertTrue(map.capacity() >= 2 * KEYS);
+        for (int i = 0; i < KEYS; i++)
+            assertEquals(i % 2 == 0 ? i + 1 : i, map.get(keys[i]));
+    }
+}
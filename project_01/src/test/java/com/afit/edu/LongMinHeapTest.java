@@ -0,0 +1,31 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+
+import org.junit.Test;
+
+/**
+ * LongMinHeap gives back every entry pushed, smallest first, through
+ * several grows
+ */
+public class LongMinHeapTest
+{
+    @Test
+    public void pushPollGrow()
+    {
+        long keys[] = LongHashSetTest.keys();
+        LongMinHeap heap = new LongMinHeap(2);
+        for (long key : keys)
+            heap.push(key);
+        assertEquals(keys.length, heap.size());
+        Arrays.sort(keys);
+        for (long key : keys) {
+            assertEquals(key, heap.peek());
+            assertEquals(key, heap.poll());
+        }
+        assertTrue(heap.isEmpty());
+    }
+}
@@ -0,0 +1,66 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import org.junit.Test;
+
+/**
+ * Checks the moves found with the occupancy masks, by Board.genMoves() and
+ * BitBoard.genMoves(), against Board.genMovesBySquare() in every state that
+ * can be reached from the puzzles.
+ */
+public class MoveGenerationTest
+{
+    @Test
+    public void hardLayouts() throws IOException
+    {
+        for (Board b : Puzzles.load("hard.txt"))
+            checkReachable(b);
+    }
+
+    @Test
+    public void simpleLayouts() throws IOException
+    {
+        for (Board b : Puzzles.load("simple.txt"))
+            checkReachable(b);
+    }
+
+    /**
+     * Compares the move generators in every state reachable from a board,
+     * and that a move takes the BitBoard to the state it takes the Board to
+     */
+    private static void checkReachable(Board start)
+    {
+        BitBoard bits = new BitBoard(start);
+        int bySquare[] = new int[Board.MAX_MOVES];
+        int byMask[] = new int[Board.MAX_MOVES];
+        int byBits[] = new int[Board.MAX_MOVES];
+        LongHashSet seen = new LongHashSet();
+        Queue<Board> queue = new LinkedList<Board>();
+        seen.add(start.stateKey());
+        queue.add(new Board(start, false));
+        while (!queue.isEmpty()) {
+            Board b = queue.poll();
+            bits.setState(b.stateKey());
+            int n = b.genMovesBySquare(bySquare);
+            int expected[] = Arrays.copyOf(bySquare, n);
+            assertArrayEquals(b.hashKey(), expected, Arrays.copyOf(byMask, b.genMoves(byMask)));
+            assertArrayEquals(b.hashKey(), expected, Arrays.copyOf(byBits, bits.genMoves(byBits)));
+            for (int k = 0; k < n; k++) {
+                Board next = new Board(b, false);
+                next.makeMove(expected[k]);
+                bits.makeMove(expected[k]);
+                assertEquals(next.stateKey(), bits.state());
+                bits.reverseMove(expected[k]);
+                if (seen.add(next.stateKey()))
+                    queue.add(next);
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * Round trips through OffHeapLongSet, through several grows and with key 0
+ */
+public class OffHeapLongSetTest
+{
+    private static final int KEYS = LongHashSetTest.KEYS;
+
+    @Test
+    public void addGrow()
+    {
+        long keys[] = LongHashSetTest.keys();
+        OffHeapLongSet set = new OffHeapLongSet(4);
+        for (long key : keys)
+            assertTrue(set.add(key));
+        for (long key : keys)
+            assertFalse(set.add(key));
+        assertEquals(KEYS, set.size());
+        assertTrue(set.capacity() >= 2 * KEYS);
+    }
+}
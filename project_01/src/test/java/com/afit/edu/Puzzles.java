@@ -0,0 +1,39 @@
+package com.afit.edu;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Loads the puzzles the tests run on
+ */
+class Puzzles
+{
+    /**
+     * Reads every board of a puzzle file in the puzzles directory, given by
+     * -Dpuzzles and ../assignment01 by default
+     *
+     * @param name - puzzle file name
+     * @return the boards in file order
+     * @throws IOException if the file cannot be read
+     */
+    static List<Board> load(String name) throws IOException
+    {
+        File file = new File(System.getProperty("puzzles", "../assignment01"), name);
+        PuzzleReader in = new PuzzleReader(file);
+        try {
+            List<Board> boards = new ArrayList<Board>();
+            String newBoard[][];
+            while ((newBoard = in.next()) != null) {
+                Board board = new Board(newBoard.length);
+                board.importBoard(newBoard);
+                boards.add(board);
+            }
+            return boards;
+        }
+        finally {
+            in.close();
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import org.junit.AfterClass;
+import org.junit.BeforeClass;
+import org.junit.ClassRule;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.Parameterized;
+import org.junit.runners.Parameterized.Parameters;
+import org.junit.rules.TemporaryFolder;
+
+/**
+ * Runs every search RushHour can be asked for on the puzzle files, and
+ * checks that each move list is made of legal moves, ends at the goal and
+ * is as short as a solution can be.
+ */
+@RunWith(Parameterized.class)
+public class SearchTest
+{
+    private static final String SEARCHES[] = {
+        "bfs", "wide", "astar", "astar-blocking", "astar-pdb", "ida", "ida-pdb",
+        "bidir", "pbfs", "layered", "external", "offheap", "retro"
+    };
+
+    // Optimal number of moves of each board in the files
+    private static final int SIMPLE[] = { 1, 3, 5, 10, 28 };
+    private static final int HARD[] = { 50, 51, 40, 46, 49 };
+
+    @ClassRule
+    public static TemporaryFolder folder = new TemporaryFolder();
+
+    private static File tableDir, spillDir;
+
+    private final String search;
+
+    @Parameters(name = "{0}")
+    public static Collection<Object[]> searches()
+    {
+        List<Object[]> result = new ArrayList<Object[]>();
+        for (String name : SEARCHES)
+            result.add(new Object[] { name });
+        return result;
+    }
+
+    public SearchTest(String search)
+    {
+        this.search = search;
+    }
+
+    @BeforeClass
+    public static void directories() throws IOException
+    {
+        // The distance tables and layer files go to a folder of their own
+        tableDir = RushHour.tableDir;
+        spillDir = RushHour.spillDir;
+        RushHour.tableDir = folder.newFolder("tables");
+        RushHour.spillDir = folder.newFolder("spill");
+    }
+
+    @AfterClass
+    public static void restore()
+    {
+        RushHour.tableDir = tableDir;
+        RushHour.spillDir = spillDir;
+    }
+
+    @Test
+    public void simple() throws IOException
+    {
+        solve("simple.txt", SIMPLE);
+    }
+
+    @Test
+    public void hard() throws IOException
+    {
+        solve("hard.txt", HARD);
+    }
+
+    private void solve(String name, int optimal[]) throws IOException
+    {
+        List<Board> boards = Puzzles.load(name);
+        assertEquals(optimal.length, boards.size());
+        for (int i = 0; i < optimal.length; i++) {
+            Board start = boards.get(i);
+            Move result = RushHour.createSearch(search, new Board(start)).findMoves();
+            String board = name + " board " + (i + 1);
+            assertEquals(board, optimal[i], replay(board, start, result));
+        }
+    }
+
+    /**
+     * Makes the moves of a list on a copy of the board
+     *
+     * @param board - name of the board for the messages
+     * @param start - Board before the moves
+     * @param moves - Move list
+     * @return number of moves
+     */
+    private static int replay(String board, Board start, Move moves)
+    {
+        Board b = new Board(start);
+        int length = 0;
+        for (Move m = moves; m != null; m = m.next) {
+            boolean found = false;
+            for (Move legal = b.genMoves(); legal != null && !found; legal = legal.next)
+                found = legal.pack() == m.pack();
+            assertTrue(board + ": illegal move " + (length + 1), found);
+            b.makeMove(m);
+            length++;
+        }
+        assertTrue(board + ": moves do not end at the goal", b.isGoal());
+        return length;
+    }
+}
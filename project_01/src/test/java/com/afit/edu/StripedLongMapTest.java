@@ -0,0 +1,55 @@
+package com.afit.edu;
+
+import static org.junit.Assert.assertEquals;
+
+import org.junit.Test;
+
+/**
+ * Round trips through StripedLongMap, through several grows and with key 0,
+ * alone and with threads racing to store the smallest value
+ */
+public class StripedLongMapTest
+{
+    private static final int KEYS = LongHashSetTest.KEYS;
+
+    @Test
+    public void putMinGetGrow()
+    {
+        long keys[] = LongHashSetTest.keys();
+        StripedLongMap map = new StripedLongMap();
+        for (int i = 0; i < KEYS; i++) {
+            assertEquals(StripedLongMap.MISSING, map.get(keys[i]));
+            assertEquals(i, map.putMin(keys[i], i));
+        }
+        // Only a smaller value replaces the one stored
+        for (int i = 0; i < KEYS; i++)
+            assertEquals(i % 2 == 0 ? i - 1 : i, map.putMin(keys[i], i % 2 == 0 ? i - 1 : i + 1));
+        assertEquals(KEYS, map.size());
+        for (int i = 0; i < KEYS; i++)
+            assertEquals(i % 2 == 0 ? i - 1 : i, map.get(keys[i]));
+    }
+
+    @Test
+    public void racingThreads() throws InterruptedException
+    {
+        final long keys[] = LongHashSetTest.keys();
+        final StripedLongMap map = new StripedLongMap();
+        Thread threads[] = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            final int offset = t;
+            threads[t] = new Thread() {
+                public void run()
+                {
+                    for (int i = 0; i < KEYS; i++)
+                        map.putMin(keys[i], (long) i * 4 + offset);
+                }
+            };
+            threads[t].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        assertEquals(KEYS, map.size());
+        for (int i = 0; i < KEYS; i++)
+            assertEquals((long) i * 4, map.get(keys[i]));
+    }
+}